@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package bplustree;
+
+/**
+ * A node of an ArrayBPlusTree. Keys, values and children live in arrays preallocated to the order
+ * of the tree with an explicit count, so inserts shift elements in place and never grow a list. A
+ * split hands the new right sibling back to the parent along the descent path, so a node never has
+ * to look itself up among its parent's children.
+ *
+ * <p>Arrays are allocated with one spare slot so that an insert can be applied before the node is
+ * split. The deleted flags of a leaf are packed into a bitset.
+ */
+class ArrayBPlusNode<K extends Comparable<K>, V> {
+  final boolean isLeaf;
+  // number of keys in use
+  int count;
+  final Object[] keys;
+  // leaf only
+  final Object[] values;
+  final long[] deleted;
+  ArrayBPlusNode<K, V> next;
+  // internal only, count + 1 children
+  final ArrayBPlusNode<K, V>[] children;
+
+  @SuppressWarnings("unchecked")
+  ArrayBPlusNode(boolean isLeaf, int order) {
+    this.isLeaf = isLeaf;
+    this.keys = new Object[order + 1];
+    if (isLeaf) {
+      this.values = new Object[order + 1];
+      this.deleted = new long[(order + 64) >>> 6];
+      this.children = null;
+    } else {
+      this.values = null;
+      this.deleted = null;
+      this.children = (ArrayBPlusNode<K, V>[]) new ArrayBPlusNode<?, ?>[order + 2];
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  K key(int index) {
+    return (K) keys[index];
+  }
+
+  @SuppressWarnings("unchecked")
+  V value(int index) {
+    return (V) values[index];
+  }
+
+  boolean isDeleted(int index) {
+    return (deleted[index >>> 6] & (1L << index)) != 0;
+  }
+
+  void setDeleted(int index, boolean value) {
+    if (value) {
+      deleted[index >>> 6] |= 1L << index;
+    } else {
+      deleted[index >>> 6] &= ~(1L << index);
+    }
+  }
+
+  BPlusRecord<K, V> record(int index) {
+    return isDeleted(index)
+        ? new BPlusRecord<>(key(index), true)
+        : new BPlusRecord<>(key(index), value(index));
+  }
+
+  /** Returns the index of key in this leaf, or {@code -(insertion point) - 1} if absent. */
+  int search(K key) {
+    int low = 0, high = count - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int comp = key(mid).compareTo(key);
+      if (comp < 0) {
+        low = mid + 1;
+      } else if (comp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /** Returns the index of the child of this internal node whose key range covers key. */
+  int childIndex(K key) {
+    // number of separators not greater than key
+    int low = 0, high = count - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (key(mid).compareTo(key) <= 0) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Inserts or updates key below this node, leaving the previous live value in {@code
+   * tree.replaced}.
+   *
+   * @return the new right sibling if this node was split, with its separator key stored in {@code
+   *     tree.splitKey}, otherwise null
+   */
+  ArrayBPlusNode<K, V> insert(K key, V value, boolean isDeleted, ArrayBPlusTree<K, V> tree) {
+    if (isLeaf) {
+      int index = search(key);
+      if (index >= 0) {
+        if (isDeleted(index)) {
+          tree.tombstoneCount--;
+        } else {
+          tree.replaced = value(index);
+        }
+        if (isDeleted) {
+          tree.tombstoneCount++;
+        }
+        values[index] = value;
+        setDeleted(index, isDeleted);
+        return null;
+      }
+      index = -index - 1;
+      System.arraycopy(keys, index, keys, index + 1, count - index);
+      System.arraycopy(values, index, values, index + 1, count - index);
+      for (int i = count; i > index; i--) {
+        setDeleted(i, isDeleted(i - 1));
+      }
+      keys[index] = key;
+      values[index] = value;
+      setDeleted(index, isDeleted);
+      count++;
+      tree.size++;
+      if (isDeleted) {
+        tree.tombstoneCount++;
+      }
+      return count > tree.getOrder() ? splitLeaf(tree) : null;
+    }
+    int index = childIndex(key);
+    ArrayBPlusNode<K, V> right = children[index].insert(key, value, isDeleted, tree);
+    if (right == null) {
+      return null;
+    }
+    System.arraycopy(keys, index, keys, index + 1, count - index);
+    System.arraycopy(children, index + 1, children, index + 2, count - index);
+    keys[index] = tree.splitKey;
+    children[index + 1] = right;
+    count++;
+    // an internal node holds at most order children
+    return count >= tree.getOrder() ? splitInternal(tree) : null;
+  }
+
+  private ArrayBPlusNode<K, V> splitLeaf(ArrayBPlusTree<K, V> tree) {
+    ArrayBPlusNode<K, V> right = new ArrayBPlusNode<>(true, tree.getOrder());
+    int leftCount = (count + 1) / 2;
+    right.count = count - leftCount;
+    System.arraycopy(keys, leftCount, right.keys, 0, right.count);
+    System.arraycopy(values, leftCount, right.values, 0, right.count);
+    for (int i = 0; i < right.count; i++) {
+      right.setDeleted(i, isDeleted(leftCount + i));
+      setDeleted(leftCount + i, false);
+      keys[leftCount + i] = null;
+      values[leftCount + i] = null;
+    }
+    count = leftCount;
+    right.next = next;
+    next = right;
+    tree.splitKey = right.keys[0];
+    return right;
+  }
+
+  private ArrayBPlusNode<K, V> splitInternal(ArrayBPlusTree<K, V> tree) {
+    ArrayBPlusNode<K, V> right = new ArrayBPlusNode<>(false, tree.getOrder());
+    int mid = count / 2;
+    right.count = count - mid - 1;
+    System.arraycopy(keys, mid + 1, right.keys, 0, right.count);
+    System.arraycopy(children, mid + 1, right.children, 0, right.count + 1);
+    tree.splitKey = keys[mid];
+    for (int i = mid; i < count; i++) {
+      keys[i] = null;
+      children[i + 1] = null;
+    }
+    count = mid;
+    return right;
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package bplustree;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A B+ tree whose nodes keep keys, values and children in fixed-capacity arrays (see {@link
+ * ArrayBPlusNode}) instead of ArrayLists of BPlusRecord. It supports the operations an LSM memtable
+ * needs: insert or update, insert a remove flag, point lookup and ordered iteration. Entries are
+ * never physically removed.
+ */
+public class ArrayBPlusTree<K extends Comparable<K>, V> implements Iterable<BPlusRecord<K, V>> {
+  private final int order;
+  private ArrayBPlusNode<K, V> root;
+  private final ArrayBPlusNode<K, V> head;
+  // number of distinct keys, including removed ones
+  int size = 0;
+  int tombstoneCount = 0;
+  // separator key of the node returned by the last split
+  Object splitKey;
+  // live value overwritten by the last insert
+  V replaced;
+
+  public ArrayBPlusTree(int order) {
+    if (order < 3) {
+      throw new IllegalArgumentException("order must be greater than 2");
+    }
+    this.order = order;
+    this.root = new ArrayBPlusNode<>(true, order);
+    this.head = root;
+  }
+
+  public int getOrder() {
+    return order;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int getTombstoneCount() {
+    return tombstoneCount;
+  }
+
+  /** Inserts or updates key, returning the live value it replaced, if any. */
+  public V insertOrUpdate(K key, V value) {
+    return insert(key, value, false);
+  }
+
+  /** Marks key as removed, returning the live value it replaced, if any. */
+  public V insertRemoveFlag(K key) {
+    return insert(key, null, true);
+  }
+
+  private V insert(K key, V value, boolean deleted) {
+    replaced = null;
+    ArrayBPlusNode<K, V> right = root.insert(key, value, deleted, this);
+    if (right != null) {
+      ArrayBPlusNode<K, V> newRoot = new ArrayBPlusNode<>(false, order);
+      newRoot.keys[0] = splitKey;
+      newRoot.children[0] = root;
+      newRoot.children[1] = right;
+      newRoot.count = 1;
+      root = newRoot;
+    }
+    splitKey = null;
+    V result = replaced;
+    replaced = null;
+    return result;
+  }
+
+  private ArrayBPlusNode<K, V> findLeaf(K key) {
+    ArrayBPlusNode<K, V> node = root;
+    while (!node.isLeaf) {
+      node = node.children[node.childIndex(key)];
+    }
+    return node;
+  }
+
+  public BPlusRecord<K, V> get(K key) {
+    ArrayBPlusNode<K, V> leaf = findLeaf(key);
+    int index = leaf.search(key);
+    return index < 0 ? null : leaf.record(index);
+  }
+
+  /** Returns the greatest key, or null if the tree is empty. */
+  public K lastKey() {
+    ArrayBPlusNode<K, V> node = root;
+    while (!node.isLeaf) {
+      node = node.children[node.count];
+    }
+    return node.count == 0 ? null : node.key(node.count - 1);
+  }
+
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator() {
+    return new LeafIterator(head, 0);
+  }
+
+  /** Iterates in ascending order starting at the first record whose key is not less than from. */
+  public Iterator<BPlusRecord<K, V>> iterator(K from) {
+    ArrayBPlusNode<K, V> leaf = findLeaf(from);
+    int index = leaf.search(from);
+    return new LeafIterator(leaf, index >= 0 ? index : -index - 1);
+  }
+
+  private class LeafIterator implements Iterator<BPlusRecord<K, V>> {
+    private ArrayBPlusNode<K, V> node;
+    private int index;
+
+    LeafIterator(ArrayBPlusNode<K, V> node, int index) {
+      this.node = node;
+      this.index = index;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (node != null && index >= node.count) {
+        node = node.next;
+        index = 0;
+      }
+      return node != null;
+    }
+
+    @Override
+    public BPlusRecord<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return node.record(index++);
+    }
+  }
+}
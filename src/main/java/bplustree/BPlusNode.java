@@ -104,16 +104,75 @@ public class BPlusNode<K extends Comparable<K>, V> {
     }
   }
 
-  public void insertOrUpdate(BPlusRecord<K, V> record, BPlusTree<K, V> tree) {
+  /** Descends from this node to the leaf whose key range covers key. */
+  protected BPlusNode<K, V> findLeaf(K key) {
+    BPlusNode<K, V> node = this;
+    while (!node.isLeaf) {
+      List<BPlusRecord<K, V>> keys = node.records;
+      if (key.compareTo(keys.get(0).getKey()) < 0) {
+        node = node.children.get(0);
+      } else if (key.compareTo(keys.get(keys.size() - 1).getKey()) >= 0) {
+        node = node.children.get(node.children.size() - 1);
+      } else {
+        int low = 0, high = keys.size() - 1, mid;
+        int comp;
+        BPlusNode<K, V> child = null;
+        while (low <= high) {
+          mid = (low + high) / 2;
+          comp = keys.get(mid).getKey().compareTo(key);
+          if (comp == 0) {
+            child = node.children.get(mid + 1);
+            break;
+          } else if (comp < 0) {
+            low = mid + 1;
+          } else {
+            high = mid - 1;
+          }
+        }
+        node = child != null ? child : node.children.get(low);
+      }
+    }
+    return node;
+  }
+
+  /** Descends from this node to the rightmost leaf. */
+  protected BPlusNode<K, V> lastLeaf() {
+    BPlusNode<K, V> node = this;
+    while (!node.isLeaf) {
+      node = node.children.get(node.children.size() - 1);
+    }
+    return node;
+  }
+
+  /** Returns the index of the first record whose key is not less than key. */
+  protected int lowerBound(K key) {
+    int low = 0, high = records.size() - 1, mid;
+    int comp;
+    while (low <= high) {
+      mid = (low + high) / 2;
+      comp = records.get(mid).getKey().compareTo(key);
+      if (comp == 0) {
+        return mid;
+      } else if (comp < 0) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /** Returns the record previously stored under the key, or null if the key was absent. */
+  public BPlusRecord<K, V> insertOrUpdate(BPlusRecord<K, V> record, BPlusTree<K, V> tree) {
     // if current node is leaf node
     if (isLeaf) {
       // no need to split, insert or update directly
       if (contains(record.getKey()) != -1 || records.size() < tree.getOrder()) {
-        insertOrUpdate(record);
+        BPlusRecord<K, V> previous = insertOrUpdate(record);
         if (tree.getHeight() == 0) {
           tree.setHeight(1);
         }
-        return;
+        return previous;
       }
       // need to split, split into two nodes (left node, right node)
       BPlusNode<K, V> left = new BPlusNode<>(true);
@@ -170,15 +229,16 @@ public class BPlusNode<K extends Comparable<K>, V> {
         records = null;
         children = null;
       }
-      return;
+      // a split only happens for a new key
+      return null;
     }
     // if current node is not leaf node
     if (record.getKey().compareTo(records.get(0).getKey()) < 0) {
       // if current key less than the left key, then search the first child
-      children.get(0).insertOrUpdate(record, tree);
+      return children.get(0).insertOrUpdate(record, tree);
     } else if (record.getKey().compareTo(records.get(records.size() - 1).getKey()) >= 0) {
       // if current key greater than the right key, then search the last child
-      children.get(children.size() - 1).insertOrUpdate(record, tree);
+      return children.get(children.size() - 1).insertOrUpdate(record, tree);
     } else {
       // otherwise, continue searching along the previous child node greater than key
       int low = 0, high = records.size() - 1, mid = 0;
@@ -187,17 +247,14 @@ public class BPlusNode<K extends Comparable<K>, V> {
         mid = (low + high) / 2;
         comp = records.get(mid).getKey().compareTo(record.getKey());
         if (comp == 0) {
-          children.get(mid + 1).insertOrUpdate(record, tree);
-          break;
+          return children.get(mid + 1).insertOrUpdate(record, tree);
         } else if (comp < 0) {
           low = mid + 1;
         } else {
           high = mid - 1;
         }
       }
-      if (low > high) {
-        children.get(low).insertOrUpdate(record, tree);
-      }
+      return children.get(low).insertOrUpdate(record, tree);
     }
   }
 
@@ -552,25 +609,23 @@ public class BPlusNode<K extends Comparable<K>, V> {
     return -1;
   }
 
-  protected void insertOrUpdate(BPlusRecord<K, V> record) {
-    // 二叉查找，插入
+  protected BPlusRecord<K, V> insertOrUpdate(BPlusRecord<K, V> record) {
+    // 二叉查找，插入；已有的记录整体替换，原来的记录原样返回
     int low = 0, high = records.size() - 1, mid;
     int comp;
     while (low <= high) {
       mid = (low + high) / 2;
       comp = records.get(mid).getKey().compareTo(record.getKey());
       if (comp == 0) {
-        records.get(mid).copy(record);
-        break;
+        return records.set(mid, record);
       } else if (comp < 0) {
         low = mid + 1;
       } else {
         high = mid - 1;
       }
     }
-    if (low > high) {
-      records.add(low, record);
-    }
+    records.add(low, record);
+    return null;
   }
 
   protected V remove(K key) {
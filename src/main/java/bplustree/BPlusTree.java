@@ -19,7 +19,9 @@
 
 package bplustree;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * B+树的定义： 1.任意非叶子结点最多有M个子节点；且M>2；M为B+树的阶数 2.除根结点以外的非叶子结点至少有 (M+1)/2个子节点； 3.根结点至少有2个子节点；
@@ -77,16 +79,51 @@ public class BPlusTree<K extends Comparable<K>, V> implements Iterable<BPlusReco
     return root.get(key);
   }
 
+  /**
+   * Looks up keys in ascending order. A key that falls in the same leaf as the previous one, or in
+   * the leaf right after it, is found without descending from the root again.
+   *
+   * @param keys keys in ascending order
+   * @return the record of each key, or null where the key is absent
+   */
+  public List<BPlusRecord<K, V>> getAll(List<K> keys) {
+    List<BPlusRecord<K, V>> result = new ArrayList<>(keys.size());
+    BPlusNode<K, V> leaf = null;
+    for (K key : keys) {
+      if (leaf == null || !endsAfter(leaf, key)) {
+        BPlusNode<K, V> next = leaf == null ? null : leaf.next;
+        leaf = next != null && endsAfter(next, key) ? next : root.findLeaf(key);
+      }
+      int index = leaf.lowerBound(key);
+      result.add(
+          index < leaf.records.size() && leaf.records.get(index).getKey().compareTo(key) == 0
+              ? leaf.records.get(index)
+              : null);
+    }
+    return result;
+  }
+
+  /**
+   * Whether the last key of leaf is not less than key. With ascending keys starting in or before
+   * leaf, key can then only be in leaf.
+   */
+  private static <K extends Comparable<K>, V> boolean endsAfter(BPlusNode<K, V> leaf, K key) {
+    List<BPlusRecord<K, V>> records = leaf.records;
+    return !records.isEmpty() && records.get(records.size() - 1).getKey().compareTo(key) >= 0;
+  }
+
   public V remove(K key) {
     return root.remove(key, this);
   }
 
-  public void insertOrUpdate(K key, V value) {
-    root.insertOrUpdate(new BPlusRecord<>(key, value), this);
+  /** Returns the record previously stored under key, or null if there was none. */
+  public BPlusRecord<K, V> insertOrUpdate(K key, V value) {
+    return root.insertOrUpdate(new BPlusRecord<>(key, value), this);
   }
 
-  public void insertRemoveFlag(K key) {
-    root.insertOrUpdate(new BPlusRecord<>(key, true), this);
+  /** Returns the record previously stored under key, or null if there was none. */
+  public BPlusRecord<K, V> insertRemoveFlag(K key) {
+    return root.insertOrUpdate(new BPlusRecord<>(key, true), this);
   }
 
   public BPlusTree(int order) {
@@ -107,4 +144,21 @@ public class BPlusTree<K extends Comparable<K>, V> implements Iterable<BPlusReco
   public Iterator<BPlusRecord<K, V>> iterator() {
     return new BPlusTreeIterator<>(this);
   }
+
+  /** Iterates in ascending order starting at the first record whose key is not less than from. */
+  public Iterator<BPlusRecord<K, V>> iterator(K from) {
+    return new BPlusTreeIterator<>(this, from);
+  }
+
+  /** Iterates in descending order starting at the last record. */
+  public Iterator<BPlusRecord<K, V>> descendingIterator() {
+    return new BPlusTreeReverseIterator<>(this);
+  }
+
+  /**
+   * Iterates in descending order starting at the last record whose key is not greater than from.
+   */
+  public Iterator<BPlusRecord<K, V>> descendingIterator(K from) {
+    return new BPlusTreeReverseIterator<>(this, from);
+  }
 }
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package bplustree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Builds a BPlusTree bottom-up from records that are already sorted by key.
+ *
+ * <p>Records are packed into leaves up to {@code order * fillFactor} entries, then every internal
+ * level is built on top of the leaves in a single pass, so building a tree of n records costs O(n)
+ * with no splits. A fill factor of 1.0 gives the densest tree, which suits trees that are only read
+ * afterwards; lower values leave room for later inserts.
+ */
+public class BPlusTreeBuilder<K extends Comparable<K>, V> {
+  private final int order;
+  private final int leafCapacity;
+  private final int internalCapacity;
+
+  // leaves built so far, linked through previous/next
+  private final List<BPlusNode<K, V>> leaves = new ArrayList<>();
+  private BPlusNode<K, V> current;
+  private K lastKey;
+  private int size = 0;
+
+  public BPlusTreeBuilder(int order, double fillFactor) {
+    if (order < 3) {
+      throw new IllegalArgumentException("order must be greater than 2");
+    }
+    if (fillFactor <= 0 || fillFactor > 1) {
+      throw new IllegalArgumentException("fill factor must be in (0, 1]");
+    }
+    this.order = order;
+    this.leafCapacity = Math.max(1, Math.min(order, (int) Math.round(order * fillFactor)));
+    this.internalCapacity = Math.max(2, Math.min(order, (int) Math.round(order * fillFactor)));
+  }
+
+  /** Appends a record, whose key must be greater than the key of the previous record. */
+  public BPlusTreeBuilder<K, V> add(BPlusRecord<K, V> record) {
+    if (lastKey != null && lastKey.compareTo(record.getKey()) >= 0) {
+      throw new IllegalArgumentException(
+          "records must be added in strictly ascending key order: " + record.getKey());
+    }
+    if (current == null || current.records.size() >= leafCapacity) {
+      BPlusNode<K, V> leaf = new BPlusNode<>(true);
+      leaf.records = new ArrayList<>(leafCapacity);
+      if (current != null) {
+        current.next = leaf;
+        leaf.previous = current;
+      }
+      leaves.add(leaf);
+      current = leaf;
+    }
+    current.records.add(record);
+    lastKey = record.getKey();
+    size++;
+    return this;
+  }
+
+  public BPlusTreeBuilder<K, V> addAll(Iterator<BPlusRecord<K, V>> records) {
+    while (records.hasNext()) {
+      add(records.next());
+    }
+    return this;
+  }
+
+  /** The number of records added so far. */
+  public int size() {
+    return size;
+  }
+
+  public BPlusTree<K, V> build() {
+    BPlusTree<K, V> tree = new BPlusTree<>(order);
+    if (leaves.isEmpty()) {
+      return tree;
+    }
+    balanceLastLeaf();
+    tree.setHead(leaves.get(0));
+
+    List<BPlusNode<K, V>> level = leaves;
+    int height = 1;
+    while (level.size() > 1) {
+      level = buildParents(level);
+      height++;
+    }
+    BPlusNode<K, V> root = level.get(0);
+    root.isRoot = true;
+    tree.setRoot(root);
+    tree.setHeight(height);
+    return tree;
+  }
+
+  /** Evens out the last two leaves so that the last one is not left nearly empty. */
+  private void balanceLastLeaf() {
+    if (leaves.size() < 2) {
+      return;
+    }
+    BPlusNode<K, V> last = leaves.get(leaves.size() - 1);
+    BPlusNode<K, V> previous = leaves.get(leaves.size() - 2);
+    if (last.records.size() * 2 >= previous.records.size()) {
+      return;
+    }
+    List<BPlusRecord<K, V>> all = new ArrayList<>(previous.records);
+    all.addAll(last.records);
+    int leftSize = (all.size() + 1) / 2;
+    previous.records = new ArrayList<>(all.subList(0, leftSize));
+    last.records = new ArrayList<>(all.subList(leftSize, all.size()));
+  }
+
+  private List<BPlusNode<K, V>> buildParents(List<BPlusNode<K, V>> children) {
+    int count = children.size();
+    // every internal node needs at least two children
+    int parentCount = Math.min((count + internalCapacity - 1) / internalCapacity, count / 2);
+    int base = count / parentCount;
+    int extra = count % parentCount;
+
+    List<BPlusNode<K, V>> parents = new ArrayList<>(parentCount);
+    int index = 0;
+    for (int i = 0; i < parentCount; i++) {
+      int childCount = base + (i < extra ? 1 : 0);
+      BPlusNode<K, V> parent = new BPlusNode<>(false);
+      parent.children = new ArrayList<>(childCount);
+      parent.records = new ArrayList<>(childCount - 1);
+      for (int j = 0; j < childCount; j++) {
+        BPlusNode<K, V> child = children.get(index++);
+        child.parent = parent;
+        parent.children.add(child);
+        if (j > 0) {
+          parent.records.add(firstRecord(child));
+        }
+      }
+      parents.add(parent);
+    }
+    return parents;
+  }
+
+  private BPlusRecord<K, V> firstRecord(BPlusNode<K, V> node) {
+    while (!node.isLeaf) {
+      node = node.children.get(0);
+    }
+    return node.records.get(0);
+  }
+}
@@ -24,11 +24,13 @@ import java.util.Iterator;
 import java.util.List;
 
 public class BPlusTreeIterator<K extends Comparable<K>, V> implements Iterator<BPlusRecord<K, V>> {
+  private final BPlusTree<K, V> tree;
   private BPlusNode<K, V> node;
   private List<BPlusRecord<K, V>> records;
   private int index = 0;
 
   public BPlusTreeIterator(BPlusTree<K, V> tree) {
+    this.tree = tree;
     BPlusNode<K, V> head = tree.getHead();
     if (head != null) {
       this.records = head.records;
@@ -39,6 +41,23 @@ public class BPlusTreeIterator<K extends Comparable<K>, V> implements Iterator<B
     }
   }
 
+  /** Starts iterating at the first record whose key is not less than from. */
+  public BPlusTreeIterator(BPlusTree<K, V> tree, K from) {
+    this(tree);
+    seek(from);
+  }
+
+  /**
+   * Repositions the iterator at the first record whose key is not less than key, descending from
+   * the root instead of walking the leaves from the head.
+   */
+  public void seek(K key) {
+    BPlusNode<K, V> leaf = tree.getRoot().findLeaf(key);
+    this.records = leaf.records;
+    this.node = leaf.next;
+    this.index = leaf.lowerBound(key);
+  }
+
   @Override
   public boolean hasNext() {
     if (index >= records.size()) {
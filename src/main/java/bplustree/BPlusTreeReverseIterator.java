@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package bplustree;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates the records of a tree in descending key order by following the {@code previous} links
+ * between leaves.
+ */
+public class BPlusTreeReverseIterator<K extends Comparable<K>, V>
+    implements Iterator<BPlusRecord<K, V>> {
+  private final BPlusTree<K, V> tree;
+  private BPlusNode<K, V> node;
+  private List<BPlusRecord<K, V>> records;
+  private int index;
+
+  public BPlusTreeReverseIterator(BPlusTree<K, V> tree) {
+    this.tree = tree;
+    BPlusNode<K, V> tail = tree.getRoot().lastLeaf();
+    this.records = tail.records;
+    this.node = tail.previous;
+    this.index = records.size() - 1;
+  }
+
+  /** Starts iterating at the last record whose key is not greater than from. */
+  public BPlusTreeReverseIterator(BPlusTree<K, V> tree, K from) {
+    this(tree);
+    seek(from);
+  }
+
+  /** Repositions the iterator at the last record whose key is not greater than key. */
+  public void seek(K key) {
+    BPlusNode<K, V> leaf = tree.getRoot().findLeaf(key);
+    this.records = leaf.records;
+    this.node = leaf.previous;
+    int i = leaf.lowerBound(key);
+    this.index = i < records.size() && records.get(i).getKey().compareTo(key) == 0 ? i : i - 1;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (index < 0) {
+      if (node == null) {
+        return false;
+      }
+      this.records = node.records;
+      node = node.previous;
+      index = records.size() - 1;
+    }
+    return true;
+  }
+
+  @Override
+  public BPlusRecord<K, V> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return records.get(index--);
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package bplustree;
+
+/**
+ * A node of a LongBPlusTree. Keys and values are kept in parallel primitive arrays instead of
+ * BPlusRecord objects, and the deleted flags of a leaf are packed into a bitset, so a lookup only
+ * touches a few arrays per level and nothing is boxed.
+ *
+ * <p>Arrays are allocated with one spare slot so that an insert can be applied before the node is
+ * split.
+ */
+public class LongBPlusNode {
+  final boolean isLeaf;
+  // number of keys in use
+  int count;
+  final long[] keys;
+  // leaf only
+  final long[] values;
+  final long[] deleted;
+  LongBPlusNode next;
+  // internal only, count + 1 children
+  final LongBPlusNode[] children;
+
+  LongBPlusNode(boolean isLeaf, int order) {
+    this.isLeaf = isLeaf;
+    this.keys = new long[order + 1];
+    if (isLeaf) {
+      this.values = new long[order + 1];
+      this.deleted = new long[(order + 64) >>> 6];
+      this.children = null;
+    } else {
+      this.values = null;
+      this.deleted = null;
+      this.children = new LongBPlusNode[order + 2];
+    }
+  }
+
+  public int size() {
+    return count;
+  }
+
+  public long key(int index) {
+    return keys[index];
+  }
+
+  public long value(int index) {
+    return values[index];
+  }
+
+  public boolean isDeleted(int index) {
+    return (deleted[index >>> 6] & (1L << index)) != 0;
+  }
+
+  void setDeleted(int index, boolean value) {
+    if (value) {
+      deleted[index >>> 6] |= 1L << index;
+    } else {
+      deleted[index >>> 6] &= ~(1L << index);
+    }
+  }
+
+  public LongBPlusNode getNext() {
+    return next;
+  }
+
+  /** Returns the index of key in this leaf, or {@code -(insertion point) - 1} if absent. */
+  public int search(long key) {
+    int low = 0, high = count - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long current = keys[mid];
+      if (current < key) {
+        low = mid + 1;
+      } else if (current > key) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /** Returns the index of the child of this internal node whose key range covers key. */
+  int childIndex(long key) {
+    // number of separators not greater than key
+    int low = 0, high = count - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (keys[mid] <= key) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Inserts or updates key below this node.
+   *
+   * @return the new right sibling if this node was split, with its separator key stored in {@code
+   *     tree.splitKey}, otherwise null
+   */
+  LongBPlusNode insert(long key, long value, boolean isDeleted, LongBPlusTree tree) {
+    if (isLeaf) {
+      int index = search(key);
+      if (index >= 0) {
+        if (isDeleted(index) != isDeleted) {
+          tree.tombstoneCount += isDeleted ? 1 : -1;
+        }
+        values[index] = value;
+        setDeleted(index, isDeleted);
+        return null;
+      }
+      index = -index - 1;
+      System.arraycopy(keys, index, keys, index + 1, count - index);
+      System.arraycopy(values, index, values, index + 1, count - index);
+      for (int i = count; i > index; i--) {
+        setDeleted(i, isDeleted(i - 1));
+      }
+      keys[index] = key;
+      values[index] = value;
+      setDeleted(index, isDeleted);
+      count++;
+      tree.size++;
+      if (isDeleted) {
+        tree.tombstoneCount++;
+      }
+      return count > tree.getOrder() ? splitLeaf(tree) : null;
+    }
+    int index = childIndex(key);
+    LongBPlusNode right = children[index].insert(key, value, isDeleted, tree);
+    if (right == null) {
+      return null;
+    }
+    System.arraycopy(keys, index, keys, index + 1, count - index);
+    System.arraycopy(children, index + 1, children, index + 2, count - index);
+    keys[index] = tree.splitKey;
+    children[index + 1] = right;
+    count++;
+    // an internal node holds at most order children
+    return count >= tree.getOrder() ? splitInternal(tree) : null;
+  }
+
+  private LongBPlusNode splitLeaf(LongBPlusTree tree) {
+    LongBPlusNode right = new LongBPlusNode(true, tree.getOrder());
+    int leftCount = (count + 1) / 2;
+    right.count = count - leftCount;
+    System.arraycopy(keys, leftCount, right.keys, 0, right.count);
+    System.arraycopy(values, leftCount, right.values, 0, right.count);
+    for (int i = 0; i < right.count; i++) {
+      right.setDeleted(i, isDeleted(leftCount + i));
+      setDeleted(leftCount + i, false);
+    }
+    count = leftCount;
+    right.next = next;
+    next = right;
+    tree.splitKey = right.keys[0];
+    return right;
+  }
+
+  private LongBPlusNode splitInternal(LongBPlusTree tree) {
+    LongBPlusNode right = new LongBPlusNode(false, tree.getOrder());
+    int mid = count / 2;
+    right.count = count - mid - 1;
+    System.arraycopy(keys, mid + 1, right.keys, 0, right.count);
+    System.arraycopy(children, mid + 1, right.children, 0, right.count + 1);
+    for (int i = mid + 1; i <= count; i++) {
+      children[i] = null;
+    }
+    tree.splitKey = keys[mid];
+    count = mid;
+    return right;
+  }
+}
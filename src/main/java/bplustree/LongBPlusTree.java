@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package bplustree;
+
+/**
+ * A B+ tree from long keys to long values, the primitive counterpart of BPlusTree. Entries are
+ * never physically removed; {@link #putTombstone(long)} marks a key as deleted instead, which is
+ * what an LSM level needs.
+ */
+public class LongBPlusTree {
+  private final int order;
+  private LongBPlusNode root;
+  private LongBPlusNode head;
+  // number of distinct keys, including deleted ones
+  int size = 0;
+  int tombstoneCount = 0;
+  // separator key of the node returned by the last split
+  long splitKey;
+
+  public LongBPlusTree(int order) {
+    if (order < 3) {
+      throw new IllegalArgumentException("order must be greater than 2");
+    }
+    this.order = order;
+    this.root = new LongBPlusNode(true, order);
+    this.head = root;
+  }
+
+  LongBPlusTree(int order, LongBPlusNode root, LongBPlusNode head, int size, int tombstoneCount) {
+    this.order = order;
+    this.root = root;
+    this.head = head;
+    this.size = size;
+    this.tombstoneCount = tombstoneCount;
+  }
+
+  public int getOrder() {
+    return order;
+  }
+
+  public LongBPlusNode getHead() {
+    return head;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int getTombstoneCount() {
+    return tombstoneCount;
+  }
+
+  public void put(long key, long value) {
+    insert(key, value, false);
+  }
+
+  public void putTombstone(long key) {
+    insert(key, 0, true);
+  }
+
+  private void insert(long key, long value, boolean deleted) {
+    LongBPlusNode right = root.insert(key, value, deleted, this);
+    if (right != null) {
+      LongBPlusNode newRoot = new LongBPlusNode(false, order);
+      newRoot.keys[0] = splitKey;
+      newRoot.children[0] = root;
+      newRoot.children[1] = right;
+      newRoot.count = 1;
+      root = newRoot;
+    }
+  }
+
+  /** Returns the leaf whose key range covers key; use {@link LongBPlusNode#search} on it. */
+  public LongBPlusNode findLeaf(long key) {
+    LongBPlusNode node = root;
+    while (!node.isLeaf) {
+      node = node.children[node.childIndex(key)];
+    }
+    return node;
+  }
+
+  public LongBPlusTreeCursor cursor() {
+    return new LongBPlusTreeCursor(head);
+  }
+}
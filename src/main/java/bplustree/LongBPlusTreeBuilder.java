@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package bplustree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a LongBPlusTree bottom-up from entries that are already sorted by key, filling every leaf.
+ */
+public class LongBPlusTreeBuilder {
+  private final int order;
+  private final List<LongBPlusNode> leaves = new ArrayList<>();
+  private LongBPlusNode current;
+  private int size = 0;
+  private int tombstoneCount = 0;
+
+  public LongBPlusTreeBuilder(int order) {
+    if (order < 3) {
+      throw new IllegalArgumentException("order must be greater than 2");
+    }
+    this.order = order;
+  }
+
+  /** Appends an entry, whose key must be greater than the key of the previous entry. */
+  public LongBPlusTreeBuilder add(long key, long value, boolean deleted) {
+    if (current != null && current.keys[current.count - 1] >= key) {
+      throw new IllegalArgumentException(
+          "keys must be strictly ascending: " + current.keys[current.count - 1] + ", " + key);
+    }
+    if (current == null || current.count >= order) {
+      LongBPlusNode leaf = new LongBPlusNode(true, order);
+      if (current != null) {
+        current.next = leaf;
+      }
+      leaves.add(leaf);
+      current = leaf;
+    }
+    current.keys[current.count] = key;
+    current.values[current.count] = value;
+    current.setDeleted(current.count, deleted);
+    current.count++;
+    size++;
+    if (deleted) {
+      tombstoneCount++;
+    }
+    return this;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public LongBPlusTree build() {
+    if (leaves.isEmpty()) {
+      return new LongBPlusTree(order);
+    }
+    List<LongBPlusNode> level = leaves;
+    long[] firstKeys = new long[leaves.size()];
+    for (int i = 0; i < leaves.size(); i++) {
+      firstKeys[i] = leaves.get(i).keys[0];
+    }
+    while (level.size() > 1) {
+      int count = level.size();
+      int parentCount = (count + order - 1) / order;
+      int base = count / parentCount;
+      int extra = count % parentCount;
+      List<LongBPlusNode> parents = new ArrayList<>(parentCount);
+      long[] parentFirstKeys = new long[parentCount];
+      int index = 0;
+      for (int i = 0; i < parentCount; i++) {
+        int childCount = base + (i < extra ? 1 : 0);
+        LongBPlusNode parent = new LongBPlusNode(false, order);
+        parentFirstKeys[i] = firstKeys[index];
+        for (int j = 0; j < childCount; j++) {
+          if (j > 0) {
+            parent.keys[j - 1] = firstKeys[index];
+          }
+          parent.children[j] = level.get(index++);
+        }
+        parent.count = childCount - 1;
+        parents.add(parent);
+      }
+      level = parents;
+      firstKeys = parentFirstKeys;
+    }
+    return new LongBPlusTree(order, level.get(0), leaves.get(0), size, tombstoneCount);
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package bplustree;
+
+/**
+ * Walks the entries of a LongBPlusTree in key order without allocating per entry:
+ *
+ * <pre>{@code
+ * for (LongBPlusTreeCursor cursor = tree.cursor(); cursor.next(); ) {
+ *   use(cursor.key(), cursor.value());
+ * }
+ * }</pre>
+ */
+public class LongBPlusTreeCursor {
+  private LongBPlusNode node;
+  private int index = -1;
+
+  LongBPlusTreeCursor(LongBPlusNode head) {
+    this.node = head;
+  }
+
+  /** Moves to the next entry, returning false once the tree is exhausted. */
+  public boolean next() {
+    index++;
+    while (node != null && index >= node.count) {
+      node = node.next;
+      index = 0;
+    }
+    return node != null;
+  }
+
+  public long key() {
+    return node.keys[index];
+  }
+
+  public long value() {
+    return node.values[index];
+  }
+
+  public boolean isDeleted() {
+    return node.isDeleted(index);
+  }
+}
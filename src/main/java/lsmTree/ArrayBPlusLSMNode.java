@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.ArrayBPlusTree;
+import bplustree.BPlusRecord;
+
+import java.util.Iterator;
+
+/**
+ * 基于数组布局 B+ 树的 level 0 内存树。节点的键、值和子节点预先分配为 order 大小的数组，插入时原地移动，
+ * 分裂时不需要在父节点中查找自己的位置；覆盖写由树直接返回旧值，不需要先额外查找一次。
+ *
+ * <p>通过 {@code config.setMemTableFactory(maxSize -> new ArrayBPlusLSMNode<>(order, maxSize))} 使用。
+ */
+public class ArrayBPlusLSMNode<K extends Comparable<K>, V> implements LSMNode<K, V> {
+  private final ArrayBPlusTree<K, V> tree;
+  private long sizeInBytes = 0;
+  private int maxSize;
+
+  public ArrayBPlusLSMNode(int order, int maxSize) {
+    this.tree = new ArrayBPlusTree<>(order);
+    this.maxSize = maxSize;
+  }
+
+  @Override
+  public void insert(BPlusRecord<K, V> record) {
+    int size = tree.size();
+    V previous =
+        record.isDeleted()
+            ? tree.insertRemoveFlag(record.getKey())
+            : tree.insertOrUpdate(record.getKey(), record.getValue());
+    if (tree.size() == size) {
+      // 原地更新，旧记录为墓碑时 previous 为 null，与墓碑的估算相同
+      sizeInBytes -= RecordSizes.estimate(record.getKey(), previous);
+    }
+    sizeInBytes += RecordSizes.estimate(record);
+  }
+
+  @Override
+  public BPlusRecord<K, V> get(K key) {
+    return tree.get(key);
+  }
+
+  @Override
+  public void print() {
+    for (BPlusRecord<K, V> record : tree) {
+      System.out.print(record + " ");
+    }
+    System.out.println();
+  }
+
+  @Override
+  public boolean needUnion() {
+    return tree.size() >= maxSize;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return tree.size() == 0;
+  }
+
+  @Override
+  public int getSize() {
+    return tree.size();
+  }
+
+  @Override
+  public long getSizeInBytes() {
+    return sizeInBytes;
+  }
+
+  @Override
+  public int getTombstoneCount() {
+    return tree.getTombstoneCount();
+  }
+
+  @Override
+  public void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  @Override
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator() {
+    return tree.iterator();
+  }
+
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator(K from) {
+    return tree.iterator(from);
+  }
+
+  @Override
+  public K lastKey() {
+    return tree.lastKey();
+  }
+}
@@ -21,13 +21,20 @@ package lsmTree;
 
 import bplustree.BPlusRecord;
 import bplustree.BPlusTree;
+import bplustree.BPlusTreeBuilder;
 import bplustree.BPlusTreeIterator;
 
 import java.util.Iterator;
+import java.util.List;
 
 public class BPlusLSMNode<K extends Comparable<K>, V> implements LSMNode<K, V> {
+  // 合并产生的层只读不写，叶子节点填满即可
+  public static final double MERGE_FILL_FACTOR = 1.0;
+
   protected BPlusTree<K, V> tree;
   protected int size = 0;
+  protected int tombstoneCount = 0;
+  protected long sizeInBytes = 0;
   protected int maxSize;
 
   public BPlusLSMNode(int order, int size) {
@@ -35,13 +42,44 @@ public class BPlusLSMNode<K extends Comparable<K>, V> implements LSMNode<K, V> {
     this.maxSize = size;
   }
 
+  /**
+   * 由有序记录自底向上批量构建
+   *
+   * @param records 按键严格递增的记录
+   */
+  public BPlusLSMNode(int order, int maxSize, Iterator<BPlusRecord<K, V>> records) {
+    BPlusTreeBuilder<K, V> builder = new BPlusTreeBuilder<>(order, MERGE_FILL_FACTOR);
+    while (records.hasNext()) {
+      BPlusRecord<K, V> record = records.next();
+      if (record.isDeleted()) {
+        tombstoneCount++;
+      }
+      sizeInBytes += RecordSizes.estimate(record);
+      builder.add(record);
+    }
+    this.tree = builder.build();
+    this.size = builder.size();
+    this.maxSize = maxSize;
+  }
+
   @Override
   public void insert(BPlusRecord<K, V> record) {
-    size++;
-    if (record.isDeleted()) {
-      tree.insertRemoveFlag(record.getKey());
+    // 插入时顺带返回被替换的记录，不必再单独查找一次
+    BPlusRecord<K, V> previous =
+        record.isDeleted()
+            ? tree.insertRemoveFlag(record.getKey())
+            : tree.insertOrUpdate(record.getKey(), record.getValue());
+    if (previous == null) {
+      size++;
     } else {
-      tree.insertOrUpdate(record.getKey(), record.getValue());
+      sizeInBytes -= RecordSizes.estimate(previous);
+      if (previous.isDeleted()) {
+        tombstoneCount--;
+      }
+    }
+    sizeInBytes += RecordSizes.estimate(record);
+    if (record.isDeleted()) {
+      tombstoneCount++;
     }
   }
 
@@ -50,6 +88,12 @@ public class BPlusLSMNode<K extends Comparable<K>, V> implements LSMNode<K, V> {
     return tree.get(key);
   }
 
+  /** 相邻的键落在同一叶子或下一个叶子时不必从根节点重新查找 */
+  @Override
+  public List<BPlusRecord<K, V>> getAll(List<K> keys) {
+    return tree.getAll(keys);
+  }
+
   @Override
   public void print() {
     tree.print();
@@ -70,6 +114,16 @@ public class BPlusLSMNode<K extends Comparable<K>, V> implements LSMNode<K, V> {
     return size;
   }
 
+  @Override
+  public long getSizeInBytes() {
+    return sizeInBytes;
+  }
+
+  @Override
+  public int getTombstoneCount() {
+    return tombstoneCount;
+  }
+
   @Override
   public void setMaxSize(int maxSize) {
     this.maxSize = maxSize;
@@ -84,4 +138,16 @@ public class BPlusLSMNode<K extends Comparable<K>, V> implements LSMNode<K, V> {
   public Iterator<BPlusRecord<K, V>> iterator() {
     return new BPlusTreeIterator<>(tree);
   }
+
+  /** 从根节点二分定位到 from 所在的叶子 */
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator(K from) {
+    return new BPlusTreeIterator<>(tree, from);
+  }
+
+  /** 沿最右侧的子节点找到最后一个叶子 */
+  @Override
+  public K lastKey() {
+    return isEmpty() ? null : tree.descendingIterator().next().getKey();
+  }
 }
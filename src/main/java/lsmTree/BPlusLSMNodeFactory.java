@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+
+import java.util.Iterator;
+
+/** 各层都保存在内存中的 B+ 树 */
+public class BPlusLSMNodeFactory<K extends Comparable<K>, V> implements LSMNodeFactory<K, V> {
+  private final int order;
+
+  public BPlusLSMNodeFactory(int order) {
+    this.order = order;
+  }
+
+  @Override
+  public LSMNode<K, V> create(int level, int maxSize, Iterator<BPlusRecord<K, V>> records) {
+    return new BPlusLSMNode<>(order, maxSize, records);
+  }
+
+  /** level 0 本身就是 B+ 树，直接移动到下一层 */
+  @Override
+  public LSMNode<K, V> flush(LSMNode<K, V> memTable, int level, int maxSize) {
+    memTable.setMaxSize(maxSize);
+    return memTable;
+  }
+
+  @Override
+  public boolean reusesMemTable() {
+    return true;
+  }
+}
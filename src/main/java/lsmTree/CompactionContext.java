@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import java.util.List;
+
+/** LSMTree 提供给合并策略的操作。level 0 以下各层只由合并修改，策略读到的各层在调用 install 之前不会变化。 */
+public interface CompactionContext<K extends Comparable<K>, V> {
+  /** 当前版本的各层，下标即层级，level 0 为可写的内存树，策略不能修改它 */
+  List<LSMNode<K, V>> levels();
+
+  /** 最早冻结、等待合并的 level 0 */
+  LSMNode<K, V> oldestImmutable();
+
+  /** 构建 level 0 以下各层的工厂 */
+  LSMNodeFactory<K, V> levelFactory();
+
+  /** 第 level 层的最大记录数 */
+  int maxSize(int level);
+
+  /** 第 level 层估算字节数的上限，0 表示只按记录数合并 */
+  long maxBytes(int level);
+
+  /** 第 level 层的不同键数量或估算的字节数是否达到上限 */
+  boolean isFull(LSMNode<K, V> node, int level);
+
+  /** 墓碑记录所占比例达到该值的层应提前合并，0 表示不提前合并 */
+  double tombstoneCompactionRatio();
+
+  /** 空的一层，用于替换被整体下移的层 */
+  LSMNode<K, V> emptyLevel(int level);
+
+  /**
+   * 用新的各层替换当前版本
+   *
+   * @param levels 新的各层，下标 0 被忽略，始终保留当前可写的 level 0
+   * @param flushed 是否已合并最早冻结的 level 0，是则将其移出等待合并的队列
+   * @param obsolete 被替换掉的层，等旧版本不再被读取后删除
+   */
+  void install(List<LSMNode<K, V>> levels, boolean flushed, List<LSMNode<K, V>> obsolete);
+
+  /** level 之下没有非空的层，合并到这一层时不存在更旧的记录，墓碑可以直接丢弃 */
+  default boolean isBottommost(int level) {
+    List<LSMNode<K, V>> levels = levels();
+    for (int i = level + 1; i < levels.size(); i++) {
+      if (!levels.get(i).isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+/**
+ * 合并策略，决定写满的 level 0 如何合并到下面各层，以及各层如何组织。
+ *
+ * <p>策略可能保存合并进度，一个实例只能用于一棵 LSM 树。合并在单个线程中进行，策略不需要考虑并发。
+ */
+public interface CompactionStrategy<K extends Comparable<K>, V> {
+  /** 将最早冻结的 level 0 合并到下面各层，返回前必须以 flushed 为 true 调用一次 {@link CompactionContext#install} */
+  void compact(CompactionContext<K, V> context);
+}
@@ -21,20 +21,78 @@ package lsmTree;
 
 import bplustree.BPlusRecord;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 public interface LSMNode<K extends Comparable<K>, V> extends Iterable<BPlusRecord<K, V>> {
   void insert(BPlusRecord<K, V> record);
 
   BPlusRecord<K, V> get(K key);
 
+  /**
+   * 按递增的 keys 依次查询，结果与 keys 一一对应，不存在的键对应 null。能利用相邻键顺序定位的层应覆盖该方法
+   *
+   * @param keys 按键严格递增
+   */
+  default List<BPlusRecord<K, V>> getAll(List<K> keys) {
+    List<BPlusRecord<K, V>> records = new ArrayList<>(keys.size());
+    for (K key : keys) {
+      records.add(get(key));
+    }
+    return records;
+  }
+
+  /** 该层是否可能包含 key，返回 false 时 get(key) 一定返回 null */
+  default boolean mightContain(K key) {
+    return true;
+  }
+
   void print();
 
+  /** 是否支持在写入的同时无锁读取，不支持时 LSMTree 读取可写的 level 0 需要加锁 */
+  default boolean isConcurrent() {
+    return false;
+  }
+
   boolean needUnion();
 
   boolean isEmpty();
 
+  /** 该层中不同键的数量，包括墓碑记录，对同一个键的多次写入只计一次 */
   int getSize();
 
+  /** 该层占用字节数的估算值，内存中的层按记录估算，文件中的层为文件大小 */
+  default long getSizeInBytes() {
+    return 0;
+  }
+
+  /** 该层中墓碑记录的数量，用于判断是否值得提前合并以回收空间 */
+  default int getTombstoneCount() {
+    return 0;
+  }
+
   void setMaxSize(int maxSize);
 
   int getMaxSize();
+
+  /** 最大的键，该层为空时返回 null。默认遍历全部记录，能直接定位最后一条记录的层应覆盖该方法 */
+  default K lastKey() {
+    K last = null;
+    for (BPlusRecord<K, V> record : this) {
+      last = record.getKey();
+    }
+    return last;
+  }
+
+  /** 从第一个键不小于 from 的记录开始按键递增遍历，能直接定位起始键的层应覆盖该方法 */
+  default Iterator<BPlusRecord<K, V>> iterator(K from) {
+    return new LowerBoundIterator<>(iterator(), from);
+  }
+
+  /** 该层被合并或转换后不再使用时调用，释放其占用的资源和持久化数据 */
+  default void delete() {}
+
+  /** LSM 树关闭时调用，释放该层占用的资源但保留持久化数据，之后可以由 {@link LSMNodeFactory#reopen} 重新打开 */
+  default void close() {}
 }
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/** 创建 level 0 以下各层的工厂，决定合并结果的存储方式 */
+public interface LSMNodeFactory<K extends Comparable<K>, V> {
+  /**
+   * 由有序记录构建一层
+   *
+   * @param level 所处层级
+   * @param maxSize 该层的最大大小
+   * @param records 按键严格递增的记录
+   */
+  LSMNode<K, V> create(int level, int maxSize, Iterator<BPlusRecord<K, V>> records);
+
+  /**
+   * 将写满的 level 0 直接转为下一层，默认按其记录重新构建。原来的 level 0 可能仍被旧版本或快照读取，这里不释放它， 不复用它的合并策略需要将其放入 {@link
+   * CompactionContext#install} 的 obsolete 中，见 {@link #reusesMemTable()}
+   *
+   * @param memTable 写满的 level 0
+   * @param level 转换后所处层级
+   * @param maxSize 该层的最大大小
+   */
+  default LSMNode<K, V> flush(LSMNode<K, V> memTable, int level, int maxSize) {
+    return create(level, maxSize, memTable.iterator());
+  }
+
+  /** flush 的结果是否直接使用原来的 level 0，是则 level 0 仍然在用，不能作为被替换的层删除 */
+  default boolean reusesMemTable() {
+    return false;
+  }
+
+  /** 各层文件所在的目录，LSM 树在其中维护记录当前各层文件的清单，重启时按清单重新打开各层。为 null 时各层只在内存中，重启后由预写日志回放重建 */
+  default File directory() {
+    return null;
+  }
+
+  /** {@link #directory()} 中由该工厂写出的全部文件，重新打开时清单没有记录的文件会被删除 */
+  default List<File> listFiles() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * 重新打开清单中记录的一个文件，见 {@link #directory()}
+   *
+   * @param file 由 {@link #create} 或 {@link #flush} 写出的文件
+   * @param level 所处层级
+   * @param maxSize 该层的最大大小
+   */
+  default LSMNode<K, V> reopen(File file, int level, int maxSize) {
+    throw new UnsupportedOperationException("levels are not persisted");
+  }
+}
@@ -20,180 +20,763 @@
 package lsmTree;
 
 import bplustree.BPlusRecord;
+import lsmTree.filter.BloomFilterLSMNodeFactory;
+import lsmTree.wal.WriteAheadLog;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
 
-public class LSMTree<K extends Comparable<K>, V> {
+public class LSMTree<K extends Comparable<K>, V> implements Closeable {
   // B+ 树阶数
   protected final int order;
   // L0 层数的树的大小
   protected final int L0Size;
   // 下一层树最大比上一层大多少
   protected final int k;
-  // 各层 LSM 树
-  protected List<LSMNode<K, V>> nodes;
+  // L0 层估算字节数的上限，0 表示只按记录数合并
+  protected final long L0Bytes;
+  // 当前版本，包含各层以及等待合并的 level 0，每次变化都整体替换
+  protected volatile Version<K, V> version;
+  // 仍可能被读取的版本，越旧越靠前
+  private final LinkedList<Version<K, V>> liveVersions = new LinkedList<>();
+  // 保护当前可写的 level 0，见 apply 和 getFromMemTable
+  private final ReadWriteLock memTableLock = new ReentrantReadWriteLock();
+  // level 0 的实现
+  protected final MemTableFactory<K, V> memTableFactory;
+  // level 0 是否支持并发读写
+  protected final boolean concurrentMemTable;
+  // 预写日志，为 null 时不记录日志
+  protected final WriteAheadLog<K, V> wal;
+  private final Object walLock = new Object();
+  // 各层存放在文件中时记录各层文件的清单，为 null 时各层只在内存中
+  private final Manifest<K, V> manifest;
+  // 各等待合并的 level 0 冻结时预写日志切换文件处的偏移，越旧越靠前。合并后它之前的日志不再需要回放
+  private final LinkedList<Long> walMarks = new LinkedList<>();
+  // 正在回放预写日志，此时不切换日志文件
+  private boolean replaying = false;
+  // level 0 以下各层的存储方式
+  protected final LSMNodeFactory<K, V> levelFactory;
+  // 后台合并线程，为 null 时在写入线程中同步合并
+  protected final ExecutorService compactionExecutor;
+  // 等待合并的 level 0 达到该数量时阻塞写入
+  protected final int maxImmutableNodes;
+  // 墓碑记录所占比例达到该值的层会被提前向下合并
+  protected final double tombstoneCompactionRatio;
+  // 合并策略
+  protected final CompactionStrategy<K, V> compactionStrategy;
+  private final CompactionContext<K, V> compactionContext = new Context();
+  // 写入计数，每写入 level 0 一条记录加一。记录本身不带序列号，它只用来标识快照创建的时刻
+  private final AtomicLong sequence = new AtomicLong();
+  // 最近创建的快照，之后没有新的写入时再次创建快照直接复用它引用的版本
+  private volatile Snapshot<K, V> lastSnapshot;
+  // 按键查询结果的缓存，为 null 时不使用
+  protected final RowCache<K, V> rowCache;
+  // 后台合并失败的原因，非 null 后拒绝写入
+  private volatile Throwable backgroundError;
 
   public LSMTree(int L0Size, int k, int order) {
-    this.order = order;
-    this.L0Size = L0Size;
-    this.k = k;
-    nodes = new ArrayList<>();
-    nodes.add(new BPlusLSMNode<>(order, L0Size));
+    this(new LSMTreeConfig<>(L0Size, k, order));
+  }
+
+  /** 带预写日志的 LSM 树，见 {@link #LSMTree(LSMTreeConfig)} */
+  public LSMTree(int L0Size, int k, int order, WriteAheadLog<K, V> wal) {
+    this(new LSMTreeConfig<K, V>(L0Size, k, order).setWal(wal));
+  }
+
+  /**
+   * 按配置构建 LSM 树。配置了预写日志时，构造时回放日志中已有的写入以恢复数据。
+   *
+   * <p>level 0 以下各层存放在文件中（{@link LSMNodeFactory#directory()} 不为
+   * null）时，每次合并后在该目录中写入记录各层文件的清单，构造时按清单重新打开各层， 再回放预写日志中尚未合并的写入。此时每次冻结 level 0
+   * 都会切换日志文件，它合并完成后之前的日志文件被删除。各层只在内存中时日志不会被删除，回放会重新执行全部写入和合并。
+   *
+   * <p>LSM 树是线程安全的：读取只读当前版本的快照，除了读取不支持并发读写的 level 0 时与单次写入互斥外不会阻塞。写入在配置了预写日志或 level 0
+   * 不支持并发读写时互相串行，否则可以并发进行。配置了预写日志时，追加日志和写入 level 0 是串行的，等待刷盘不是，并发的写入共用 fsync， 因此写入在刷盘完成、返回之前就可能被读到。
+   */
+  public LSMTree(LSMTreeConfig<K, V> config) {
+    this.order = config.getOrder();
+    this.L0Size = config.getL0Size();
+    this.k = config.getK();
+    this.L0Bytes = config.getL0Bytes();
+    this.wal = config.getWal();
+    this.levelFactory =
+        config.getBloomFilterBitsPerKey() > 0
+            ? new BloomFilterLSMNodeFactory<>(
+                config.getLevelFactory(), config.getBloomFilterBitsPerKey())
+            : config.getLevelFactory();
+    this.maxImmutableNodes = config.getMaxImmutableNodes();
+    this.tombstoneCompactionRatio = config.getTombstoneCompactionRatio();
+    this.compactionStrategy = config.getCompactionStrategy();
+    this.rowCache =
+        config.getRowCacheEntries() > 0 || config.getRowCacheBytes() > 0
+            ? new RowCache<>(config.getRowCacheEntries(), config.getRowCacheBytes())
+            : null;
+    this.compactionExecutor =
+        config.isBackgroundCompaction()
+            ? Executors.newSingleThreadExecutor(
+                r -> {
+                  Thread thread = new Thread(r, "lsm-compaction");
+                  thread.setDaemon(true);
+                  return thread;
+                })
+            : null;
+    this.memTableFactory = config.getMemTableFactory();
+    this.manifest = levelFactory.directory() == null ? null : new Manifest<>(levelFactory, order);
+    List<LSMNode<K, V>> nodes = new ArrayList<>();
+    nodes.add(memTableFactory.create(L0Size));
+    this.concurrentMemTable = nodes.get(0).isConcurrent();
+    if (manifest != null) {
+      nodes.addAll(manifest.load());
+    }
+    version = new Version<>(nodes, new ArrayList<>());
+    liveVersions.add(version);
+    if (wal != null) {
+      replaying = true;
+      try {
+        wal.replay(this::apply);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } finally {
+        replaying = false;
+      }
+    }
   }
 
   /** 插入键值 */
   public void insert(K key, V value) {
-    LSMNode<K, V> level0Tree = nodes.get(0);
-    level0Tree.insert(new BPlusRecord<>(key, value));
-    if (level0Tree.needUnion()) {
-      merge(level0Tree, 0);
-    }
+    write(new BPlusRecord<>(key, value));
   }
 
-  /** 查询键值为 key 的值 */
+  /** 查询键值为 key 的值，配置了行缓存时先查缓存，未命中时查找各层并缓存结果 */
   public V get(K key) {
-    for (LSMNode<K, V> node : nodes) {
-      BPlusRecord<K, V> record = node.get(key);
-      if (record != null) {
-        return (record.isDeleted()) ? null : record.getValue();
-      }
+    if (rowCache == null) {
+      return lookup(key);
+    }
+    RowCache.Entry<V> cached = rowCache.get(key);
+    if (cached != null) {
+      return cached.value;
     }
-    return null;
+    long stamp = rowCache.stamp(key);
+    V value = lookup(key);
+    rowCache.put(key, value, stamp);
+    return value;
   }
 
-  /** 为键值 key 的记录添加墓碑标记 */
-  public void remove(K key) {
-    LSMNode<K, V> level0Tree = nodes.get(0);
-    level0Tree.insert(new BPlusRecord<>(key, true));
-    if (level0Tree.needUnion()) {
-      merge(level0Tree, 0);
+  /** 依次查找 level 0、等待合并的 level 0 和各层 */
+  private V lookup(K key) {
+    Version<K, V> current = acquireVersion();
+    try {
+      BPlusRecord<K, V> record = find(current, key, null);
+      return (record == null || record.isDeleted()) ? null : record.getValue();
+    } finally {
+      releaseVersion(current);
     }
   }
 
   /**
-   * 合并相邻层级
+   * 在 current 的各层中查找 key 最新的记录，不存在时返回 null
    *
-   * @param node 待合并的树
-   * @param level 待合并的树所处的层级
+   * @param pinned 不为 null 时用它代替可写的 level 0，用于快照
    */
-  private void merge(LSMNode<K, V> node, int level) {
-    if (level <= nodes.size()) {
-      int greatLevelTreeSize = (int) (L0Size * Math.pow(k, level + 1));
-      if (level + 1 == nodes.size()) {
-        // 如果 level + 1 层为空，则直接替换。
-        node.setMaxSize(greatLevelTreeSize);
-        nodes.add(node);
-        nodes.set(level, new BPlusLSMNode<>(order, (int) (L0Size * Math.pow(k, level))));
-      } else if (!nodes.get(level + 1).isEmpty()) {
-        // 如果 level + 1 层非空，则合并两层
-        LSMNode<K, V> newNode = new BPlusLSMNode<>(order, greatLevelTreeSize);
-        mergeNode(newNode, node, nodes.get(level + 1));
-        nodes.set(level + 1, newNode);
-        nodes.set(level, new BPlusLSMNode<>(order, (int) (L0Size * Math.pow(k, level))));
-        if (newNode.needUnion()) {
-          merge(newNode, level + 1);
+  BPlusRecord<K, V> find(Version<K, V> current, K key, LSMNode<K, V> pinned) {
+    BPlusRecord<K, V> record =
+        pinned == null ? getFromMemTable(current.nodes.get(0), key) : pinned.get(key);
+    if (record == null) {
+      for (LSMNode<K, V> node : current.immutableNodes) {
+        record = node.get(key);
+        if (record != null) {
+          break;
         }
-      } else {
-        // 如果 level + 1 层为空，则直接替换
-        node.setMaxSize(greatLevelTreeSize);
-        nodes.set(level + 1, node);
-        nodes.set(level, new BPlusLSMNode<>(order, (int) (L0Size * Math.pow(k, level))));
       }
     }
+    for (int level = 1; record == null && level < current.nodes.size(); level++) {
+      LSMNode<K, V> node = current.nodes.get(level);
+      if (node.mightContain(key)) {
+        record = node.get(key);
+      }
+    }
+    return record;
   }
 
   /**
-   * 合并两层
+   * 批量查询，返回其中存在的键及其值，不存在或已删除的键不在结果中。
    *
-   * @param node 结果
-   * @param node1 层级比较低的一层
-   * @param node2 层级比较高的一层
+   * <p>键先去重并排序，然后逐层查找，每层只查找之前各层还没有结果的键。B+ 树和 SSTable 等层按递增的键顺序定位，相邻的键落在同一叶子或块中时不需要重新查找。
+   * 所有键都在同一个版本中查找。配置了行缓存时先查缓存，并缓存其余键的结果。
    */
-  private void mergeNode(LSMNode<K, V> node, LSMNode<K, V> node1, LSMNode<K, V> node2) {
-    Iterator<BPlusRecord<K, V>> iterator1 = node1.iterator();
-    Iterator<BPlusRecord<K, V>> iterator2 = node2.iterator();
-    // if any one is empty then
-    if (!iterator1.hasNext()) {
-      node = node2;
-    } else if (!iterator2.hasNext()) {
-      node = node1;
-    }
-    // both not empty
-    BPlusRecord<K, V> entry1 = iterator1.next(), entry2 = iterator2.next();
-    do {
-      if (entry1 == null && entry2 == null) {
-        break;
-      } else if (entry1 == null) {
-        node.insert(entry2);
-        entry2 = iterator2.hasNext() ? iterator2.next() : null;
-      } else if (entry2 == null) {
-        node.insert(entry1);
-        entry1 = iterator1.hasNext() ? iterator1.next() : null;
+  public Map<K, V> multiGet(Collection<K> keys) {
+    List<K> pending = new ArrayList<>(new TreeSet<>(keys));
+    Map<K, V> result = new HashMap<>();
+    long[] stamps = null;
+    if (rowCache != null) {
+      List<K> misses = new ArrayList<>();
+      for (K key : pending) {
+        RowCache.Entry<V> cached = rowCache.get(key);
+        if (cached == null) {
+          misses.add(key);
+        } else if (cached.value != null) {
+          result.put(key, cached.value);
+        }
+      }
+      pending = misses;
+      stamps = new long[misses.size()];
+      for (int i = 0; i < stamps.length; i++) {
+        stamps[i] = rowCache.stamp(misses.get(i));
+      }
+    }
+    List<K> lookedUp = pending;
+    Version<K, V> current = acquireVersion();
+    try {
+      LSMNode<K, V> memTable = current.nodes.get(0);
+      if (memTable.isConcurrent()) {
+        pending = resolve(pending, memTable.getAll(pending), result);
       } else {
-        int result = entry1.getKey().compareTo(entry2.getKey());
-        switch (result) {
-          case -1:
-            // <
-            node.insert(entry1);
-            entry1 = iterator1.hasNext() ? iterator1.next() : null;
-            break;
-          case 1:
-            // >
-            node.insert(entry2);
-            entry2 = iterator2.hasNext() ? iterator2.next() : null;
-            break;
-          default:
-            // equal
-            node.insert(entry1);
-            entry1 = iterator1.hasNext() ? iterator1.next() : null;
-            entry2 = iterator2.hasNext() ? iterator2.next() : null;
-            break;
+        memTableLock.readLock().lock();
+        try {
+          // B+ 树中的记录会被原地更新，需要在锁内取出值
+          pending = resolve(pending, memTable.getAll(pending), result);
+        } finally {
+          memTableLock.readLock().unlock();
         }
       }
-    } while (iterator1.hasNext() || iterator2.hasNext());
-    // check left entry
-    if (entry1 != null && entry2 != null) {
-      int result = entry1.getKey().compareTo(entry2.getKey());
-      switch (result) {
-        case -1:
-          // <
-          node.insert(entry1);
-          node.insert(entry2);
+      for (LSMNode<K, V> node : current.immutableNodes) {
+        if (pending.isEmpty()) {
           break;
-        case 1:
-          // >
-          node.insert(entry2);
-          node.insert(entry1);
-          break;
-        default:
-          // equal
-          node.insert(entry1);
+        }
+        pending = resolve(pending, node.getAll(pending), result);
+      }
+      for (int level = 1; !pending.isEmpty() && level < current.nodes.size(); level++) {
+        pending = resolve(pending, current.nodes.get(level).getAll(pending), result);
+      }
+    } finally {
+      releaseVersion(current);
+    }
+    if (rowCache != null) {
+      for (int i = 0; i < stamps.length; i++) {
+        K key = lookedUp.get(i);
+        rowCache.put(key, result.get(key), stamps[i]);
+      }
+    }
+    return result;
+  }
+
+  /** 将一层的查询结果记入 result，返回该层中也没有记录的键 */
+  private List<K> resolve(List<K> keys, List<BPlusRecord<K, V>> records, Map<K, V> result) {
+    List<K> pending = new ArrayList<>();
+    for (int i = 0; i < keys.size(); i++) {
+      BPlusRecord<K, V> record = records.get(i);
+      if (record == null) {
+        pending.add(keys.get(i));
+      } else if (!record.isDeleted()) {
+        result.put(keys.get(i), record.getValue());
+      }
+    }
+    return pending;
+  }
+
+  private BPlusRecord<K, V> getFromMemTable(LSMNode<K, V> memTable, K key) {
+    if (memTable.isConcurrent()) {
+      return memTable.get(key);
+    }
+    memTableLock.readLock().lock();
+    try {
+      return memTable.get(key);
+    } finally {
+      memTableLock.readLock().unlock();
+    }
+  }
+
+  /** 按键递增遍历全部键值 */
+  public ScanIterator<K, V> scan() {
+    return scanWhile(null, key -> true);
+  }
+
+  /**
+   * 按键递增遍历 [from, to) 范围内的键值
+   *
+   * @param from 起始键（包含），为 null 时从最小的键开始
+   * @param to 结束键（不包含），为 null 时直到最大的键
+   */
+  public ScanIterator<K, V> scan(K from, K to) {
+    return scanWhile(from, to == null ? key -> true : key -> key.compareTo(to) < 0);
+  }
+
+  /**
+   * 按键递增遍历以 prefix 为前缀的键值，例如 {@code scanPrefix("user:", key -> key.startsWith("user:"))}
+   *
+   * @param prefix 前缀本身，也是所有带该前缀的键中最小的一个
+   * @param hasPrefix 判断键是否带有该前缀
+   */
+  public ScanIterator<K, V> scanPrefix(K prefix, Predicate<? super K> hasPrefix) {
+    return scanWhile(prefix, hasPrefix);
+  }
+
+  /**
+   * 从 from 开始按键递增遍历，直到第一个不满足 inRange 的键。对当前版本的各层做多路归并，键相同时取最新的一层，并隐藏墓碑记录。
+   *
+   * <p>不支持并发读写的 level 0 会在读锁下先复制出范围内的记录，其余各层都是惰性读取的。
+   */
+  public ScanIterator<K, V> scanWhile(K from, Predicate<? super K> inRange) {
+    return scan(acquireVersion(), from, inRange, null);
+  }
+
+  /**
+   * 遍历 current 的各层，返回的迭代器关闭时释放调用方持有的 current 的一个引用
+   *
+   * @param pinned 不为 null 时用它代替可写的 level 0，用于快照
+   */
+  ScanIterator<K, V> scan(
+      Version<K, V> current, K from, Predicate<? super K> inRange, LSMNode<K, V> pinned) {
+    try {
+      List<Iterator<BPlusRecord<K, V>>> iterators = new ArrayList<>();
+      iterators.add(
+          pinned == null
+              ? memTableIterator(current.nodes.get(0), from, inRange)
+              : iterator(pinned, from));
+      for (LSMNode<K, V> node : current.immutableNodes) {
+        iterators.add(iterator(node, from));
+      }
+      for (int level = 1; level < current.nodes.size(); level++) {
+        iterators.add(iterator(current.nodes.get(level), from));
+      }
+      return new ScanIterator<>(
+          new MergingIterator<>(iterators), inRange, () -> releaseVersion(current));
+    } catch (RuntimeException e) {
+      releaseVersion(current);
+      throw e;
+    }
+  }
+
+  private Iterator<BPlusRecord<K, V>> memTableIterator(
+      LSMNode<K, V> memTable, K from, Predicate<? super K> inRange) {
+    if (memTable.isConcurrent()) {
+      return iterator(memTable, from);
+    }
+    List<BPlusRecord<K, V>> records = new ArrayList<>();
+    memTableLock.readLock().lock();
+    try {
+      Iterator<BPlusRecord<K, V>> iterator = iterator(memTable, from);
+      while (iterator.hasNext()) {
+        BPlusRecord<K, V> record = iterator.next();
+        if (!inRange.test(record.getKey())) {
           break;
+        }
+        records.add(copy(record));
+      }
+    } finally {
+      memTableLock.readLock().unlock();
+    }
+    return records.iterator();
+  }
+
+  /** B+ 树中的记录会被原地更新，在锁外读取前需要复制 */
+  private static <K extends Comparable<K>, V> BPlusRecord<K, V> copy(BPlusRecord<K, V> record) {
+    return record.isDeleted()
+        ? new BPlusRecord<>(record.getKey(), true)
+        : new BPlusRecord<>(record.getKey(), record.getValue());
+  }
+
+  /** 从 from 开始遍历一层，各层自行定位起始键，不需要从头扫描 */
+  private static <K extends Comparable<K>, V> Iterator<BPlusRecord<K, V>> iterator(
+      LSMNode<K, V> node, K from) {
+    return from == null ? node.iterator() : node.iterator(from);
+  }
+
+  /** 为键值 key 的记录添加墓碑标记 */
+  public void remove(K key) {
+    write(new BPlusRecord<>(key, true));
+  }
+
+  /** 先写日志，再写入 level 0 */
+  private void write(BPlusRecord<K, V> record) {
+    write(Collections.singletonList(record), false);
+  }
+
+  /**
+   * 整体写入一批记录：先按键排序并去掉被覆盖的写入，整批作为一条预写日志写入，再在一次加锁中写入 level 0，最后只检查一次是否需要合并， 因此 level 0 可能暂时超过其大小上限。
+   *
+   * <p>level 0 不支持并发读写时，读取不会看到只写入了一部分的批次。
+   */
+  public void write(WriteBatch<K, V> batch) {
+    if (!batch.isEmpty()) {
+      write(batch.sortedRecords(), true);
+    }
+  }
+
+  private void write(List<BPlusRecord<K, V>> records, boolean batch) {
+    if (backgroundError != null) {
+      throw new IllegalStateException("background compaction failed", backgroundError);
+    }
+    if (wal == null) {
+      apply(records);
+      return;
+    }
+    try {
+      long offset;
+      // 日志与 level 0 的写入顺序必须一致；在锁外等待刷盘，使并发的写入共用一次 fsync
+      synchronized (walLock) {
+        offset = batch ? wal.writeBatch(records) : wal.write(records.get(0));
+        apply(records);
+      }
+      wal.awaitDurable(offset);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void apply(BPlusRecord<K, V> record) {
+    apply(Collections.singletonList(record));
+  }
+
+  /** 写入 level 0。支持并发读写的 level 0 允许多个写入同时进行，只与冻结互斥；否则写入之间以及写入与读取之间都互斥。 */
+  private void apply(List<BPlusRecord<K, V>> records) {
+    Lock lock = concurrentMemTable ? memTableLock.readLock() : memTableLock.writeLock();
+    LSMNode<K, V> level0Tree;
+    lock.lock();
+    try {
+      level0Tree = version.nodes.get(0);
+      for (BPlusRecord<K, V> record : records) {
+        level0Tree.insert(record);
+      }
+      sequence.addAndGet(records.size());
+    } finally {
+      lock.unlock();
+    }
+    if (rowCache != null) {
+      // 写入 level 0 之后失效，见 RowCache
+      for (BPlusRecord<K, V> record : records) {
+        rowCache.invalidate(record.getKey());
+      }
+    }
+    if (compactionContext.isFull(level0Tree, 0)) {
+      freeze(level0Tree);
+    }
+  }
+
+  /** 冻结写满的 level 0 并换上新的内存树，然后同步合并或交给后台线程合并 */
+  private synchronized void freeze(LSMNode<K, V> level0Tree) {
+    if (compactionExecutor != null) {
+      // 等待合并的 level 0 过多时阻塞写入
+      boolean interrupted = false;
+      while (version.nodes.get(0) == level0Tree
+          && version.immutableNodes.size() >= maxImmutableNodes
+          && backgroundError == null) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (version.nodes.get(0) != level0Tree) {
+      // 已被其他写入冻结
+      return;
+    }
+    memTableLock.writeLock().lock();
+    try {
+      List<LSMNode<K, V>> nodes = new ArrayList<>(version.nodes);
+      List<LSMNode<K, V>> immutableNodes = new ArrayList<>(version.immutableNodes);
+      immutableNodes.add(0, level0Tree);
+      nodes.set(0, memTableFactory.create(L0Size));
+      if (manifest != null && wal != null) {
+        // 调用方持有 walLock，切换处之前的日志恰好是冻结的 level 0 及更早的写入
+        walMarks.addLast(replaying ? 0 : rotateWal());
+      }
+      install(new Version<>(nodes, immutableNodes), Collections.emptyList());
+    } finally {
+      memTableLock.writeLock().unlock();
+    }
+    if (compactionExecutor == null) {
+      compact();
+    } else {
+      compactionExecutor.execute(this::compactInBackground);
+    }
+  }
+
+  private long rotateWal() {
+    try {
+      return wal.rotate();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * 创建当前时刻的一致快照，快照包含创建之前的全部写入，之后的写入对它不可见。{@link Snapshot#getSequence()} 是创建时的写入计数。
+   *
+   * <p>level 0 以外的层都是不可变的，快照引用当前版本，并在短暂阻塞写入的同时复制一份当前的 level 0，读取时用它代替之后可写的 level 0。复制的代价与 level 0
+   * 的大小成正比，不会冻结 level 0 或触发合并，因此频繁创建快照不会增加写放大。合并产生新层时，被替换的层要等引用它的快照关闭后才删除，
+   * 因此长时间的扫描可以与写入和合并同时进行，不需要加锁。 上一个快照之后没有写入时直接复用它引用的版本和 level 0 副本。快照使用完毕后必须关闭。
+   */
+  public Snapshot<K, V> snapshot() {
+    Snapshot<K, V> last = lastSnapshot;
+    if (last != null && last.getSequence() == sequence.get() && last.version.retain()) {
+      // 上一个快照之后没有写入，不需要再复制 level 0
+      return new Snapshot<>(this, last.version, last.memTable, last.getSequence());
+    }
+    List<BPlusRecord<K, V>> records = new ArrayList<>();
+    Version<K, V> current;
+    long created;
+    // 写锁同时排除写入和冻结，复制的 level 0、版本和写入计数属于同一时刻
+    memTableLock.writeLock().lock();
+    try {
+      current = acquireVersion();
+      created = sequence.get();
+      for (BPlusRecord<K, V> record : current.nodes.get(0)) {
+        records.add(copy(record));
+      }
+    } finally {
+      memTableLock.writeLock().unlock();
+    }
+    Snapshot<K, V> snapshot =
+        new Snapshot<>(
+            this, current, new BPlusLSMNode<>(order, L0Size, records.iterator()), created);
+    lastSnapshot = snapshot;
+    return snapshot;
+  }
+
+  /** 写入计数，每写入一条记录加一，预写日志回放的记录同样计入。记录本身不带序列号，不能按序列号读取历史版本 */
+  public long getSequence() {
+    return sequence.get();
+  }
+
+  private void compactInBackground() {
+    try {
+      compact();
+    } catch (Throwable e) {
+      backgroundError = e;
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+  }
+
+  /** 由合并策略将最早冻结的 level 0 合并到下面各层，各层只由这里修改，合并本身不持有锁 */
+  private void compact() {
+    List<LSMNode<K, V>> immutableNodes = version.immutableNodes;
+    LSMNode<K, V> node = immutableNodes.get(immutableNodes.size() - 1);
+    compactionStrategy.compact(compactionContext);
+    if (version.immutableNodes.contains(node)) {
+      throw new IllegalStateException("compaction strategy did not flush level 0");
+    }
+  }
+
+  /** 等待已冻结的 level 0 全部合并完成 */
+  public synchronized void awaitCompaction() throws InterruptedException {
+    while (!version.immutableNodes.isEmpty() && backgroundError == null) {
+      wait();
+    }
+    if (backgroundError != null) {
+      throw new IllegalStateException("background compaction failed", backgroundError);
+    }
+  }
+
+  /** 替换当前版本，obsolete 为被替换掉的层，等旧版本不再被读取后删除 */
+  private synchronized void install(Version<K, V> newVersion, List<LSMNode<K, V>> obsolete) {
+    Version<K, V> old = version;
+    synchronized (liveVersions) {
+      old.obsolete = obsolete;
+      liveVersions.addLast(newVersion);
+    }
+    version = newVersion;
+    releaseVersion(old);
+  }
+
+  /** 获取并引用当前版本，读取结束后需调用 releaseVersion */
+  protected Version<K, V> acquireVersion() {
+    while (true) {
+      Version<K, V> current = version;
+      if (current.retain()) {
+        return current;
+      }
+    }
+  }
+
+  /** 释放版本的引用，按从旧到新的顺序删除不再被任何版本引用的层 */
+  protected void releaseVersion(Version<K, V> released) {
+    if (!released.release()) {
+      return;
+    }
+    synchronized (liveVersions) {
+      released.dead = true;
+      while (!liveVersions.isEmpty() && liveVersions.getFirst().dead) {
+        for (LSMNode<K, V> node : liveVersions.removeFirst().obsolete) {
+          node.delete();
+        }
       }
-    } else if (entry1 != null) {
-      node.insert(entry1);
-    } else if (entry2 != null) {
-      node.insert(entry2);
     }
   }
 
   public int getMaxLevel() {
-    return nodes.size();
+    return version.nodes.size();
+  }
+
+  /** 第 level 层当前不同键的数量，不含等待合并的 level 0 */
+  public int getSize(int level) {
+    return version.nodes.get(level).getSize();
+  }
+
+  /** 第 level 层当前估算的字节数，不含等待合并的 level 0 */
+  public long getSizeInBytes(int level) {
+    return version.nodes.get(level).getSizeInBytes();
+  }
+
+  /** 第 level 层当前的墓碑记录数，不含等待合并的 level 0 */
+  public int getTombstoneCount(int level) {
+    return version.nodes.get(level).getTombstoneCount();
+  }
+
+  /** 行缓存，未配置时返回 null */
+  public RowCache<K, V> getRowCache() {
+    return rowCache;
   }
 
   public int getOrder() {
     return order;
   }
 
+  /**
+   * 等待后台合并结束后关闭预写日志，未刷盘的日志会先 fsync。各层存放在文件中时只关闭文件，之后可以按清单重新打开；否则各层会由日志回放重建，因此一并释放。 level 0
+   * 只在内存中，重新打开后由预写日志恢复，未配置预写日志时其中的写入会丢失。
+   */
+  @Override
+  public void close() throws IOException {
+    if (compactionExecutor != null) {
+      compactionExecutor.shutdown();
+      try {
+        compactionExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    Version<K, V> current = version;
+    for (LSMNode<K, V> node : current.immutableNodes) {
+      node.delete();
+    }
+    for (int level = 0; level < current.nodes.size(); level++) {
+      if (manifest == null || level == 0) {
+        current.nodes.get(level).delete();
+      } else {
+        current.nodes.get(level).close();
+      }
+    }
+    if (wal != null) {
+      wal.close();
+    }
+  }
+
+  /** 提供给合并策略的操作，安装新版本时保留当前可写的 level 0 */
+  private class Context implements CompactionContext<K, V> {
+    @Override
+    public List<LSMNode<K, V>> levels() {
+      return version.nodes;
+    }
+
+    @Override
+    public LSMNode<K, V> oldestImmutable() {
+      List<LSMNode<K, V>> immutableNodes = version.immutableNodes;
+      return immutableNodes.get(immutableNodes.size() - 1);
+    }
+
+    @Override
+    public LSMNodeFactory<K, V> levelFactory() {
+      return levelFactory;
+    }
+
+    @Override
+    public int maxSize(int level) {
+      return (int) (L0Size * Math.pow(k, level));
+    }
+
+    @Override
+    public long maxBytes(int level) {
+      return L0Bytes > 0 ? (long) (L0Bytes * Math.pow(k, level)) : 0;
+    }
+
+    @Override
+    public boolean isFull(LSMNode<K, V> node, int level) {
+      return node.needUnion() || (L0Bytes > 0 && node.getSizeInBytes() >= maxBytes(level));
+    }
+
+    @Override
+    public double tombstoneCompactionRatio() {
+      return tombstoneCompactionRatio;
+    }
+
+    @Override
+    public LSMNode<K, V> emptyLevel(int level) {
+      return new BPlusLSMNode<>(order, maxSize(level));
+    }
+
+    @Override
+    public void install(List<LSMNode<K, V>> levels, boolean flushed, List<LSMNode<K, V>> obsolete) {
+      synchronized (LSMTree.this) {
+        List<LSMNode<K, V>> nodes = new ArrayList<>(levels);
+        nodes.set(0, version.nodes.get(0));
+        List<LSMNode<K, V>> immutableNodes = new ArrayList<>(version.immutableNodes);
+        if (flushed) {
+          immutableNodes.remove(immutableNodes.size() - 1);
+        }
+        try {
+          if (manifest != null) {
+            // 清单写好之后才能删除被替换的层
+            manifest.write(nodes);
+          }
+          LSMTree.this.install(new Version<>(nodes, immutableNodes), obsolete);
+          if (flushed && !walMarks.isEmpty()) {
+            wal.discardBefore(walMarks.removeFirst());
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        LSMTree.this.notifyAll();
+      }
+    }
+  }
+
   public void print() {
-    System.out.printf("LSM Tree: MaxLevel=%d, K=%d, Order=%d\n", nodes.size(), k, order);
-    for (int level = 0; level < nodes.size(); level++) {
-      LSMNode<K, V> tree = nodes.get(level);
-      System.out.printf(
-          "Level-%d Tree: MaxSize=%d, Size=%d\n", level, tree.getMaxSize(), tree.getSize());
-      tree.print();
+    Version<K, V> current = acquireVersion();
+    try {
+      List<LSMNode<K, V>> nodes = current.nodes;
+      System.out.printf("LSM Tree: MaxLevel=%d, K=%d, Order=%d\n", nodes.size(), k, order);
+      for (LSMNode<K, V> tree : current.immutableNodes) {
+        System.out.printf("Immutable Level-0 Tree: Size=%d\n", tree.getSize());
+        tree.print();
+      }
+      for (int level = 0; level < nodes.size(); level++) {
+        LSMNode<K, V> tree = nodes.get(level);
+        System.out.printf(
+            "Level-%d Tree: MaxSize=%d, Size=%d, Bytes=%d, Tombstones=%d\n",
+            level,
+            tree.getMaxSize(),
+            tree.getSize(),
+            tree.getSizeInBytes(),
+            tree.getTombstoneCount());
+        tree.print();
+      }
+    } finally {
+      releaseVersion(current);
     }
   }
 }
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import lsmTree.wal.WriteAheadLog;
+
+/** LSMTree 的配置 */
+public class LSMTreeConfig<K extends Comparable<K>, V> {
+  // B+ 树阶数
+  private final int order;
+  // L0 层数的树的大小
+  private final int L0Size;
+  // 下一层树最大比上一层大多少
+  private final int k;
+  // 预写日志，为 null 时不记录日志
+  private WriteAheadLog<K, V> wal;
+  // level 0 以下各层的存储方式，默认保存在内存中的 B+ 树
+  private LSMNodeFactory<K, V> levelFactory;
+  // level 0 的实现，默认为 B+ 树
+  private MemTableFactory<K, V> memTableFactory;
+  // 合并产生的每层所带布隆过滤器每个 key 占用的位数，常用 10（误判率约 1%），0 表示不使用
+  private int bloomFilterBitsPerKey = 0;
+  // 是否在后台线程中合并写满的 level 0，否则在写入线程中同步合并
+  private boolean backgroundCompaction = false;
+  // 后台合并时，等待合并的 level 0 达到该数量时阻塞写入
+  private int maxImmutableNodes = 2;
+  // level 0 以下某层墓碑记录所占比例达到该值时提前向下合并，0 表示不提前合并
+  private double tombstoneCompactionRatio = 0.5;
+  // level 0 估算字节数的上限，下一层依次乘以 k，达到上限或记录数达到上限时合并，0 表示只按记录数
+  private long L0Bytes = 0;
+  // 行缓存最多缓存的条数和估算字节数，都为 0 表示不使用行缓存
+  private long rowCacheEntries = 0;
+  private long rowCacheBytes = 0;
+  // 合并策略，默认整层合并
+  private CompactionStrategy<K, V> compactionStrategy = new WholeLevelCompactionStrategy<>();
+
+  public LSMTreeConfig(int L0Size, int k, int order) {
+    this.L0Size = L0Size;
+    this.k = k;
+    this.order = order;
+    this.levelFactory = new BPlusLSMNodeFactory<>(order);
+    this.memTableFactory = maxSize -> new BPlusLSMNode<>(order, maxSize);
+  }
+
+  public int getOrder() {
+    return order;
+  }
+
+  public int getL0Size() {
+    return L0Size;
+  }
+
+  public int getK() {
+    return k;
+  }
+
+  public WriteAheadLog<K, V> getWal() {
+    return wal;
+  }
+
+  public LSMTreeConfig<K, V> setWal(WriteAheadLog<K, V> wal) {
+    this.wal = wal;
+    return this;
+  }
+
+  public LSMNodeFactory<K, V> getLevelFactory() {
+    return levelFactory;
+  }
+
+  public LSMTreeConfig<K, V> setLevelFactory(LSMNodeFactory<K, V> levelFactory) {
+    this.levelFactory = levelFactory;
+    return this;
+  }
+
+  public MemTableFactory<K, V> getMemTableFactory() {
+    return memTableFactory;
+  }
+
+  /** 使用 {@code SkipListLSMNode::new} 时，没有预写日志的写入可以并发进行 */
+  public LSMTreeConfig<K, V> setMemTableFactory(MemTableFactory<K, V> memTableFactory) {
+    this.memTableFactory = memTableFactory;
+    return this;
+  }
+
+  public int getBloomFilterBitsPerKey() {
+    return bloomFilterBitsPerKey;
+  }
+
+  public LSMTreeConfig<K, V> setBloomFilterBitsPerKey(int bloomFilterBitsPerKey) {
+    this.bloomFilterBitsPerKey = bloomFilterBitsPerKey;
+    return this;
+  }
+
+  public boolean isBackgroundCompaction() {
+    return backgroundCompaction;
+  }
+
+  public LSMTreeConfig<K, V> setBackgroundCompaction(boolean backgroundCompaction) {
+    this.backgroundCompaction = backgroundCompaction;
+    return this;
+  }
+
+  public int getMaxImmutableNodes() {
+    return maxImmutableNodes;
+  }
+
+  public LSMTreeConfig<K, V> setMaxImmutableNodes(int maxImmutableNodes) {
+    this.maxImmutableNodes = maxImmutableNodes;
+    return this;
+  }
+
+  public long getL0Bytes() {
+    return L0Bytes;
+  }
+
+  public LSMTreeConfig<K, V> setL0Bytes(long L0Bytes) {
+    this.L0Bytes = L0Bytes;
+    return this;
+  }
+
+  public CompactionStrategy<K, V> getCompactionStrategy() {
+    return compactionStrategy;
+  }
+
+  /**
+   * 可选 {@link WholeLevelCompactionStrategy}、{@link LeveledCompactionStrategy} 和 {@link
+   * SizeTieredCompactionStrategy}，策略实例不能在多棵树之间共享
+   */
+  public LSMTreeConfig<K, V> setCompactionStrategy(CompactionStrategy<K, V> compactionStrategy) {
+    this.compactionStrategy = compactionStrategy;
+    return this;
+  }
+
+  public double getTombstoneCompactionRatio() {
+    return tombstoneCompactionRatio;
+  }
+
+  public LSMTreeConfig<K, V> setTombstoneCompactionRatio(double tombstoneCompactionRatio) {
+    this.tombstoneCompactionRatio = tombstoneCompactionRatio;
+    return this;
+  }
+
+  public long getRowCacheEntries() {
+    return rowCacheEntries;
+  }
+
+  /** 行缓存最多缓存的条数，0 表示不按条数限制，见 {@link RowCache} */
+  public LSMTreeConfig<K, V> setRowCacheEntries(long rowCacheEntries) {
+    this.rowCacheEntries = rowCacheEntries;
+    return this;
+  }
+
+  public long getRowCacheBytes() {
+    return rowCacheBytes;
+  }
+
+  /** 行缓存最多缓存的估算字节数，0 表示不按字节数限制，见 {@link RowCache} */
+  public LSMTreeConfig<K, V> setRowCacheBytes(long rowCacheBytes) {
+    this.rowCacheBytes = rowCacheBytes;
+    return this;
+  }
+}
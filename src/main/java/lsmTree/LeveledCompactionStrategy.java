@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+import lsmTree.PartitionedLSMNode.Run;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分层合并：level 0 以下每层切分成至多 runSize 条记录、键范围互不重叠的段（见 {@link PartitionedLSMNode}），合并时只重写下一层中与之重叠的段。
+ *
+ * <p>单次合并的工作量与段的大小成正比，不随最大的一层增长，适合很大的底层。
+ */
+public class LeveledCompactionStrategy<K extends Comparable<K>, V>
+    implements CompactionStrategy<K, V> {
+  private final int runSize;
+  // 各层上一次被挑选下推的段的最后一个键，下一次从其后挑选，使各段轮流下推
+  private final Map<Integer, K> compactPointers = new HashMap<>();
+
+  public LeveledCompactionStrategy(int runSize) {
+    if (runSize <= 0) {
+      throw new IllegalArgumentException("runSize must be positive: " + runSize);
+    }
+    this.runSize = runSize;
+  }
+
+  @Override
+  public void compact(CompactionContext<K, V> context) {
+    LSMNode<K, V> node = context.oldestImmutable();
+    merge(context, node, PartitionedLSMNode.of(node), 0);
+    compactTombstones(context);
+  }
+
+  /** 墓碑比例过高的层中，墓碑最多的一段提前向下合并，最底层则原地重写 */
+  private void compactTombstones(CompactionContext<K, V> context) {
+    double ratio = context.tombstoneCompactionRatio();
+    if (ratio <= 0) {
+      return;
+    }
+    for (int level = 1; level < context.levels().size(); level++) {
+      LSMNode<K, V> node = context.levels().get(level);
+      if (node.isEmpty() || node.getTombstoneCount() < node.getSize() * ratio) {
+        continue;
+      }
+      Run<K, V> worst = null;
+      for (Run<K, V> run : runsOf(node)) {
+        if (worst == null || run.node.getTombstoneCount() > worst.node.getTombstoneCount()) {
+          worst = run;
+        }
+      }
+      if (context.isBottommost(level)) {
+        purge(context, worst, level);
+      } else {
+        merge(context, worst.node, worst, level);
+      }
+    }
+  }
+
+  /** 重写最底层的一段，丢弃其中的墓碑 */
+  private void purge(CompactionContext<K, V> context, Run<K, V> run, int level) {
+    List<Run<K, V>> newRuns =
+        createRuns(context, level, new LiveRecordIterator<>(run.node.iterator()));
+    List<LSMNode<K, V>> levels = new ArrayList<>(context.levels());
+    List<Run<K, V>> runs = new ArrayList<>(runsOf(levels.get(level)));
+    int index = runs.indexOf(run);
+    runs.remove(index);
+    runs.addAll(index, newRuns);
+    levels.set(level, new PartitionedLSMNode<>(runs, context.maxSize(level)));
+    context.install(levels, false, Collections.singletonList(run.node));
+  }
+
+  /**
+   * 将上层的一段与第 level + 1 层中键范围重叠的段归并，重写为新的段，第 level + 1 层的其余段原样保留。与下一层没有重叠且不超过 runSize 条时直接下移。
+   *
+   * <p>第 level + 1 层超过大小上限时，轮流挑选其中的一段继续向下合并，直到不再超过上限。
+   *
+   * @param node 待合并的 level 0，或第 level 层中的一段
+   * @param source node 的键范围，level 0 为空时为 null
+   * @param level node 所处的层级
+   */
+  private void merge(
+      CompactionContext<K, V> context, LSMNode<K, V> node, Run<K, V> source, int level) {
+    List<LSMNode<K, V>> levels = new ArrayList<>(context.levels());
+    List<Run<K, V>> targetRuns =
+        level + 1 < levels.size() ? runsOf(levels.get(level + 1)) : Collections.emptyList();
+    int from = 0, to = 0;
+    List<Run<K, V>> newRuns = Collections.emptyList();
+    List<LSMNode<K, V>> obsolete = new ArrayList<>();
+    if (source == null && level == 0) {
+      // 空的 level 0 不会放入下一层
+      obsolete.add(node);
+    } else if (source != null) {
+      while (from < targetRuns.size() && targetRuns.get(from).last.compareTo(source.first) < 0) {
+        from++;
+      }
+      to = from;
+      while (to < targetRuns.size() && targetRuns.get(to).first.compareTo(source.last) <= 0) {
+        to++;
+      }
+      List<Run<K, V>> overlapping = targetRuns.subList(from, to);
+      boolean bottommost = context.isBottommost(level + 1);
+      if (overlapping.isEmpty()
+          && !(bottommost && node.getTombstoneCount() > 0)
+          && node.getSize() <= runSize) {
+        // 没有重叠，直接下移
+        LSMNode<K, V> moved =
+            level == 0 ? context.levelFactory().flush(node, level + 1, runSize) : node;
+        newRuns = Collections.singletonList(new Run<>(source.first, source.last, moved));
+        if (level == 0 && !context.levelFactory().reusesMemTable()) {
+          obsolete.add(node);
+        }
+      } else {
+        // 与下一层有重叠，或 level 0 超过段的大小，归并后切分成多段
+        Iterator<BPlusRecord<K, V>> records =
+            overlapping.isEmpty()
+                ? node.iterator()
+                : new MergingIterator<>(
+                    node.iterator(), new PartitionedLSMNode<>(overlapping, 0).iterator());
+        newRuns =
+            createRuns(
+                context, level + 1, bottommost ? new LiveRecordIterator<>(records) : records);
+        obsolete.add(node);
+        for (Run<K, V> run : overlapping) {
+          obsolete.add(run.node);
+        }
+      }
+    }
+    List<Run<K, V>> runs = new ArrayList<>(targetRuns);
+    runs.subList(from, to).clear();
+    runs.addAll(from, newRuns);
+    LSMNode<K, V> target = new PartitionedLSMNode<>(runs, context.maxSize(level + 1));
+    if (level + 1 == levels.size()) {
+      levels.add(target);
+    } else {
+      levels.set(level + 1, target);
+    }
+    if (level > 0) {
+      List<Run<K, V>> remaining = new ArrayList<>(runsOf(levels.get(level)));
+      remaining.remove(source);
+      levels.set(level, new PartitionedLSMNode<>(remaining, context.maxSize(level)));
+    }
+    context.install(levels, level == 0, obsolete);
+    while (context.isFull(context.levels().get(level + 1), level + 1)) {
+      Run<K, V> run = pickRun(context, level + 1);
+      merge(context, run.node, run, level + 1);
+    }
+  }
+
+  /** 从上一次下推的段之后挑选一段，到达末尾后从头开始 */
+  private Run<K, V> pickRun(CompactionContext<K, V> context, int level) {
+    List<Run<K, V>> runs = runsOf(context.levels().get(level));
+    K pointer = compactPointers.get(level);
+    Run<K, V> picked = runs.get(0);
+    if (pointer != null) {
+      for (Run<K, V> run : runs) {
+        if (run.first.compareTo(pointer) > 0) {
+          picked = run;
+          break;
+        }
+      }
+    }
+    compactPointers.put(level, picked.last);
+    return picked;
+  }
+
+  /** 将有序记录切分为至多 runSize 条记录的段 */
+  private List<Run<K, V>> createRuns(
+      CompactionContext<K, V> context, int level, Iterator<BPlusRecord<K, V>> records) {
+    return PartitionedLSMNode.split(
+        records, runSize, runRecords -> context.levelFactory().create(level, runSize, runRecords));
+  }
+
+  /** 某层的全部段 */
+  private static <K extends Comparable<K>, V> List<Run<K, V>> runsOf(LSMNode<K, V> node) {
+    return node instanceof PartitionedLSMNode
+        ? ((PartitionedLSMNode<K, V>) node).getRuns()
+        : Collections.emptyList();
+  }
+}
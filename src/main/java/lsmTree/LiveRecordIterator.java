@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/** 过滤掉墓碑记录，用于合并到最底层时，此时已没有被墓碑遮蔽的更旧记录 */
+class LiveRecordIterator<K extends Comparable<K>, V> implements Iterator<BPlusRecord<K, V>> {
+  private final Iterator<BPlusRecord<K, V>> records;
+  private BPlusRecord<K, V> nextRecord;
+
+  LiveRecordIterator(Iterator<BPlusRecord<K, V>> records) {
+    this.records = records;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (nextRecord == null && records.hasNext()) {
+      BPlusRecord<K, V> record = records.next();
+      if (!record.isDeleted()) {
+        nextRecord = record;
+      }
+    }
+    return nextRecord != null;
+  }
+
+  @Override
+  public BPlusRecord<K, V> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    BPlusRecord<K, V> record = nextRecord;
+    nextRecord = null;
+    return record;
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.LongBPlusNode;
+import bplustree.LongBPlusTree;
+import bplustree.LongBPlusTreeBuilder;
+import bplustree.LongBPlusTreeCursor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 键和值都是 long 的 LSM 树，是 LSMTree&lt;Long, Long&gt; 的原始类型版本。
+ *
+ * <p>每层都是 {@link LongBPlusTree}，节点用并列的 long 数组保存键和值，用位图保存墓碑标记，不创建 BPlusRecord 和包装类型对象。每条记录约占 16
+ * 字节，查找时直接比较数组中的 long。合并方式与 {@link WholeLevelCompactionStrategy} 相同，逐层整体归并，合并到最底层时丢弃墓碑。
+ *
+ * <p>没有预写日志和后台合并，所有操作在树的监视器上串行执行。
+ */
+public class LongLSMTree {
+  // B+ 树阶数
+  private final int order;
+  // L0 层数的树的大小
+  private final int L0Size;
+  // 下一层树最大比上一层大多少
+  private final int k;
+  // 各层，level 0 可写
+  private final List<LongBPlusTree> levels = new ArrayList<>();
+
+  public LongLSMTree(int L0Size, int k, int order) {
+    this.L0Size = L0Size;
+    this.k = k;
+    this.order = order;
+    levels.add(new LongBPlusTree(order));
+  }
+
+  public synchronized void put(long key, long value) {
+    LongBPlusTree level0 = levels.get(0);
+    level0.put(key, value);
+    if (level0.size() >= L0Size) {
+      merge(0);
+    }
+  }
+
+  /** 为 key 写入墓碑 */
+  public synchronized void remove(long key) {
+    LongBPlusTree level0 = levels.get(0);
+    level0.putTombstone(key);
+    if (level0.size() >= L0Size) {
+      merge(0);
+    }
+  }
+
+  /** 查询 key 的值，不存在或已删除时返回 defaultValue */
+  public synchronized long get(long key, long defaultValue) {
+    for (LongBPlusTree tree : levels) {
+      LongBPlusNode leaf = tree.findLeaf(key);
+      int index = leaf.search(key);
+      if (index >= 0) {
+        return leaf.isDeleted(index) ? defaultValue : leaf.value(index);
+      }
+    }
+    return defaultValue;
+  }
+
+  public synchronized boolean containsKey(long key) {
+    for (LongBPlusTree tree : levels) {
+      LongBPlusNode leaf = tree.findLeaf(key);
+      int index = leaf.search(key);
+      if (index >= 0) {
+        return !leaf.isDeleted(index);
+      }
+    }
+    return false;
+  }
+
+  public synchronized int getMaxLevel() {
+    return levels.size();
+  }
+
+  /** 第 level 层不同键的数量，包括墓碑 */
+  public synchronized int getSize(int level) {
+    return levels.get(level).size();
+  }
+
+  public synchronized int getTombstoneCount(int level) {
+    return levels.get(level).getTombstoneCount();
+  }
+
+  /** 将第 level 层合并到下一层，下一层为空时直接下移 */
+  private void merge(int level) {
+    LongBPlusTree node = levels.get(level);
+    LongBPlusTree greatLevelNode = level + 1 < levels.size() ? levels.get(level + 1) : null;
+    boolean bottommost = isBottommost(level + 1);
+    LongBPlusTree newNode;
+    if ((greatLevelNode == null || greatLevelNode.size() == 0)
+        && !(bottommost && node.getTombstoneCount() > 0)) {
+      newNode = node;
+    } else {
+      newNode = mergeNode(node, greatLevelNode, bottommost);
+    }
+    if (level + 1 == levels.size()) {
+      levels.add(newNode);
+    } else {
+      levels.set(level + 1, newNode);
+    }
+    levels.set(level, new LongBPlusTree(order));
+    if (newNode.size() >= L0Size * Math.pow(k, level + 1)) {
+      merge(level + 1);
+    }
+  }
+
+  /** level 之下没有非空的层 */
+  private boolean isBottommost(int level) {
+    for (int i = level + 1; i < levels.size(); i++) {
+      if (levels.get(i).size() > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 归并两层，键相同时取较新的一层
+   *
+   * @param newer 层级比较低的一层
+   * @param older 层级比较高的一层，可以为 null
+   * @param bottommost 结果是否为最底层，是则丢弃墓碑
+   */
+  private LongBPlusTree mergeNode(LongBPlusTree newer, LongBPlusTree older, boolean bottommost) {
+    LongBPlusTreeBuilder builder = new LongBPlusTreeBuilder(order);
+    LongBPlusTreeCursor a = newer.cursor();
+    LongBPlusTreeCursor b = older == null ? new LongBPlusTree(order).cursor() : older.cursor();
+    boolean hasA = a.next(), hasB = b.next();
+    while (hasA || hasB) {
+      LongBPlusTreeCursor from;
+      if (!hasB || (hasA && a.key() <= b.key())) {
+        if (hasB && a.key() == b.key()) {
+          // 较旧的记录被覆盖
+          hasB = b.next();
+        }
+        from = a;
+      } else {
+        from = b;
+      }
+      if (!(bottommost && from.isDeleted())) {
+        builder.add(from.key(), from.value(), from.isDeleted());
+      }
+      if (from == a) {
+        hasA = a.next();
+      } else {
+        hasB = b.next();
+      }
+    }
+    return builder.build();
+  }
+}
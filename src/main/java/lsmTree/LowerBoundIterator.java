@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/** 跳过有序记录中键小于 from 的前缀，用于不能直接定位起始键的层 */
+public class LowerBoundIterator<K extends Comparable<K>, V> implements Iterator<BPlusRecord<K, V>> {
+  private final Iterator<BPlusRecord<K, V>> records;
+  private K from;
+  private BPlusRecord<K, V> nextRecord;
+
+  public LowerBoundIterator(Iterator<BPlusRecord<K, V>> records, K from) {
+    this.records = records;
+    this.from = from;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (nextRecord != null) {
+      return true;
+    }
+    while (records.hasNext()) {
+      BPlusRecord<K, V> record = records.next();
+      if (from == null || record.getKey().compareTo(from) >= 0) {
+        // 记录有序，之后的键都不小于 from
+        from = null;
+        nextRecord = record;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public BPlusRecord<K, V> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    BPlusRecord<K, V> record = nextRecord;
+    nextRecord = null;
+    return record;
+  }
+}
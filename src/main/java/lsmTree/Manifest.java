@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import lsmTree.filter.BloomFilterLSMNode;
+import lsmTree.sstable.AbstractSSTableLSMNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 记录 level 0 以下各层由哪些文件组成的清单，每次安装新的各层时整体重写，重启时按它重新打开各层。每层一行：
+ *
+ * <pre>
+ * maxSize empty
+ * maxSize single 文件名
+ * maxSize partitioned 文件名 ...   （{@link PartitionedLSMNode} 的各段，按键递增）
+ * maxSize tiered 文件名 ...        （{@link TieredLSMNode} 的各段，越新越靠前）
+ * </pre>
+ *
+ * <p>先写临时文件并 fsync，再原子地替换旧清单，因此清单要么是旧的要么是新的。替换前后都对目录 fsync，使新写出的层文件和新清单的目录项在清单生效、
+ * 预写日志被删除之前持久化。被替换的层在新清单写好之后才会删除，重新打开时删除目录中清单没有记录的层文件。
+ */
+class Manifest<K extends Comparable<K>, V> {
+  static final String FILE_NAME = "MANIFEST";
+
+  private final File file;
+  private final File directory;
+  private final LSMNodeFactory<K, V> factory;
+  private final int order;
+
+  /**
+   * @param factory 构建各层的工厂，其 {@link LSMNodeFactory#directory()} 不能为 null
+   * @param order 重新打开空层时使用的 B+ 树阶数
+   */
+  Manifest(LSMNodeFactory<K, V> factory, int order) {
+    this.directory = factory.directory();
+    this.file = new File(directory, FILE_NAME);
+    this.factory = factory;
+    this.order = order;
+  }
+
+  /** 按清单重新打开 level 1 及以下各层，清单不存在时返回空列表。合并中途崩溃时写出的文件，以及关闭时仍被快照引用而没有删除的文件都不在清单中， 这里一并删除 */
+  List<LSMNode<K, V>> load() {
+    List<LSMNode<K, V>> levels = new ArrayList<>();
+    Set<File> live = new HashSet<>();
+    try {
+      if (file.exists()) {
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+          String[] fields = line.split(" ");
+          for (int i = 2; i < fields.length; i++) {
+            live.add(new File(directory, fields[i]));
+          }
+          levels.add(open(fields, levels.size() + 1));
+        }
+      }
+      for (File levelFile : factory.listFiles()) {
+        if (!live.contains(levelFile) && !levelFile.delete() && levelFile.exists()) {
+          throw new IOException("failed to delete unused level file: " + levelFile);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return levels;
+  }
+
+  private LSMNode<K, V> open(String[] fields, int level) {
+    int maxSize = Integer.parseInt(fields[0]);
+    List<LSMNode<K, V>> runs = new ArrayList<>();
+    for (int i = 2; i < fields.length; i++) {
+      runs.add(factory.reopen(new File(directory, fields[i]), level, maxSize));
+    }
+    switch (fields[1]) {
+      case "empty":
+        return new BPlusLSMNode<>(order, maxSize);
+      case "single":
+        return runs.get(0);
+      case "partitioned":
+        List<PartitionedLSMNode.Run<K, V>> ranges = new ArrayList<>();
+        for (LSMNode<K, V> run : runs) {
+          ranges.add(PartitionedLSMNode.of(run));
+        }
+        return new PartitionedLSMNode<>(ranges, maxSize);
+      case "tiered":
+        return new TieredLSMNode<>(runs, maxSize);
+      default:
+        throw new IllegalStateException("corrupted manifest: " + file);
+    }
+  }
+
+  /** 用 levels 的下标 1 及之后的各层替换清单 */
+  void write(List<LSMNode<K, V>> levels) throws IOException {
+    StringBuilder content = new StringBuilder();
+    for (int level = 1; level < levels.size(); level++) {
+      LSMNode<K, V> node = levels.get(level);
+      content.append(node.getMaxSize()).append(' ');
+      if (node instanceof PartitionedLSMNode) {
+        content.append("partitioned");
+        for (PartitionedLSMNode.Run<K, V> run : ((PartitionedLSMNode<K, V>) node).getRuns()) {
+          content.append(' ').append(fileName(run.node));
+        }
+      } else if (node instanceof TieredLSMNode) {
+        content.append("tiered");
+        for (LSMNode<K, V> run : ((TieredLSMNode<K, V>) node).getRuns()) {
+          content.append(' ').append(fileName(run));
+        }
+      } else if (isFile(node)) {
+        content.append("single ").append(fileName(node));
+      } else if (node.isEmpty()) {
+        content.append("empty");
+      } else {
+        throw new IllegalStateException("level " + level + " is not stored in a file: " + node);
+      }
+      content.append('\n');
+    }
+    // 新的层文件已经写完并 fsync，还需要持久化它们的目录项
+    syncDirectory();
+    File temp = new File(directory, FILE_NAME + ".tmp");
+    try (FileChannel channel =
+        FileChannel.open(
+            temp.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+    Files.move(
+        temp.toPath(),
+        file.toPath(),
+        StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+    syncDirectory();
+  }
+
+  private void syncDirectory() throws IOException {
+    try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+      channel.force(true);
+    }
+  }
+
+  private static boolean isFile(LSMNode<?, ?> node) {
+    if (node instanceof BloomFilterLSMNode) {
+      node = ((BloomFilterLSMNode<?, ?>) node).getNode();
+    }
+    return node instanceof AbstractSSTableLSMNode;
+  }
+
+  /** 一段对应的文件名，过滤器不写入文件，重新打开时由工厂重建 */
+  private String fileName(LSMNode<?, ?> node) {
+    if (node instanceof BloomFilterLSMNode) {
+      node = ((BloomFilterLSMNode<?, ?>) node).getNode();
+    }
+    if (!(node instanceof AbstractSSTableLSMNode)) {
+      throw new IllegalStateException("run is not stored in a file: " + node);
+    }
+    File nodeFile = ((AbstractSSTableLSMNode<?, ?>) node).getFile();
+    if (!directory.equals(nodeFile.getParentFile())) {
+      throw new IllegalStateException("file is outside " + directory + ": " + nodeFile);
+    }
+    return nodeFile.getName();
+  }
+}
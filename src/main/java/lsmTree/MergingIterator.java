@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * 基于堆的多路归并，将多个按键有序的迭代器合并为一个。键相同时只保留最新的记录，即在 iterators 中位置最靠前的一个。
+ *
+ * <p>墓碑记录会原样输出，由调用方决定是否隐藏。
+ */
+public class MergingIterator<K extends Comparable<K>, V> implements Iterator<BPlusRecord<K, V>> {
+  private final List<Iterator<BPlusRecord<K, V>>> iterators;
+  private final PriorityQueue<Entry<K, V>> heap;
+
+  /** @param iterators 各个有序迭代器，越新越靠前 */
+  public MergingIterator(List<Iterator<BPlusRecord<K, V>>> iterators) {
+    this.iterators = iterators;
+    this.heap = new PriorityQueue<>(Math.max(1, iterators.size()));
+    for (int i = 0; i < iterators.size(); i++) {
+      Iterator<BPlusRecord<K, V>> iterator = iterators.get(i);
+      if (iterator.hasNext()) {
+        heap.add(new Entry<>(iterator.next(), i));
+      }
+    }
+  }
+
+  public MergingIterator(Iterator<BPlusRecord<K, V>> newer, Iterator<BPlusRecord<K, V>> older) {
+    this(Arrays.asList(newer, older));
+  }
+
+  @Override
+  public boolean hasNext() {
+    return !heap.isEmpty();
+  }
+
+  @Override
+  public BPlusRecord<K, V> next() {
+    if (heap.isEmpty()) {
+      throw new NoSuchElementException();
+    }
+    Entry<K, V> top = heap.poll();
+    BPlusRecord<K, V> result = top.record;
+    advance(top);
+    // 跳过较旧的同键记录
+    while (!heap.isEmpty() && heap.peek().record.getKey().compareTo(result.getKey()) == 0) {
+      advance(heap.poll());
+    }
+    return result;
+  }
+
+  /** 取出 entry 所属迭代器的下一条记录放回堆中，复用 entry 对象 */
+  private void advance(Entry<K, V> entry) {
+    Iterator<BPlusRecord<K, V>> iterator = iterators.get(entry.source);
+    if (iterator.hasNext()) {
+      entry.record = iterator.next();
+      heap.add(entry);
+    }
+  }
+
+  private static class Entry<K extends Comparable<K>, V> implements Comparable<Entry<K, V>> {
+    BPlusRecord<K, V> record;
+    final int source;
+
+    Entry(BPlusRecord<K, V> record, int source) {
+      this.record = record;
+      this.source = source;
+    }
+
+    @Override
+    public int compareTo(Entry<K, V> other) {
+      int comp = record.getKey().compareTo(other.record.getKey());
+      return comp != 0 ? comp : Integer.compare(source, other.source);
+    }
+  }
+}
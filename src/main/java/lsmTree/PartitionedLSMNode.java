@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * 分段的一层：由多个键范围互不重叠、按键有序排列的段组成，每段都是一个独立构建的 LSMNode。
+ *
+ * <p>分层合并时只重写与上层重叠的几段，其余各段原样复用，单次合并的工作量与段的大小而不是整层的大小成正比。该层本身不可修改，合并时构建新的实例替换。
+ */
+public class PartitionedLSMNode<K extends Comparable<K>, V> implements LSMNode<K, V> {
+  /** 一段及其键范围 */
+  static final class Run<K extends Comparable<K>, V> {
+    final K first;
+    final K last;
+    final LSMNode<K, V> node;
+
+    Run(K first, K last, LSMNode<K, V> node) {
+      this.first = first;
+      this.last = last;
+      this.node = node;
+    }
+  }
+
+  private final List<Run<K, V>> runs;
+  private final int size;
+  private final int tombstoneCount;
+  private final long sizeInBytes;
+  private int maxSize;
+
+  PartitionedLSMNode(List<Run<K, V>> runs, int maxSize) {
+    this.runs = Collections.unmodifiableList(new ArrayList<>(runs));
+    this.maxSize = maxSize;
+    int size = 0, tombstoneCount = 0;
+    long sizeInBytes = 0;
+    for (Run<K, V> run : runs) {
+      size += run.node.getSize();
+      tombstoneCount += run.node.getTombstoneCount();
+      sizeInBytes += run.node.getSizeInBytes();
+    }
+    this.size = size;
+    this.tombstoneCount = tombstoneCount;
+    this.sizeInBytes = sizeInBytes;
+  }
+
+  /**
+   * 将有序记录按 runSize 条切分成多段
+   *
+   * @param records 按键严格递增的记录
+   * @param create 由一段记录构建 LSMNode，需要消费完传入的记录
+   */
+  static <K extends Comparable<K>, V> List<Run<K, V>> split(
+      Iterator<BPlusRecord<K, V>> records,
+      int runSize,
+      Function<Iterator<BPlusRecord<K, V>>, LSMNode<K, V>> create) {
+    List<Run<K, V>> runs = new ArrayList<>();
+    while (records.hasNext()) {
+      RunIterator<K, V> run = new RunIterator<>(records, runSize);
+      LSMNode<K, V> node = create.apply(run);
+      runs.add(new Run<>(run.first, run.last, node));
+    }
+    return runs;
+  }
+
+  /** 一个已构建的层的键范围，为空时返回 null */
+  static <K extends Comparable<K>, V> Run<K, V> of(LSMNode<K, V> node) {
+    Iterator<BPlusRecord<K, V>> iterator = node.iterator();
+    return iterator.hasNext() ? new Run<>(iterator.next().getKey(), node.lastKey(), node) : null;
+  }
+
+  List<Run<K, V>> getRuns() {
+    return runs;
+  }
+
+  /** 二分查找 last 不小于 key 的第一段 */
+  private int findRun(K key) {
+    int low = 0, high = runs.size() - 1, mid;
+    while (low <= high) {
+      mid = (low + high) / 2;
+      if (runs.get(mid).last.compareTo(key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /** 可能包含 key 的段，不存在时返回 null */
+  private Run<K, V> runFor(K key) {
+    int index = findRun(key);
+    if (index == runs.size() || runs.get(index).first.compareTo(key) > 0) {
+      return null;
+    }
+    return runs.get(index);
+  }
+
+  @Override
+  public void insert(BPlusRecord<K, V> record) {
+    throw new UnsupportedOperationException("partitioned level is immutable");
+  }
+
+  @Override
+  public BPlusRecord<K, V> get(K key) {
+    Run<K, V> run = runFor(key);
+    return run == null ? null : run.node.get(key);
+  }
+
+  @Override
+  public boolean mightContain(K key) {
+    Run<K, V> run = runFor(key);
+    return run != null && run.node.mightContain(key);
+  }
+
+  @Override
+  public void print() {
+    System.out.printf("[Partitioned]: runs=%d\n", runs.size());
+    for (Run<K, V> run : runs) {
+      System.out.printf("[%s, %s] ", run.first, run.last);
+      run.node.print();
+    }
+  }
+
+  @Override
+  public boolean needUnion() {
+    return size >= maxSize;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public long getSizeInBytes() {
+    return sizeInBytes;
+  }
+
+  @Override
+  public int getTombstoneCount() {
+    return tombstoneCount;
+  }
+
+  @Override
+  public void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  @Override
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /** 删除全部段，合并时被替换的段由 LSMTree 单独删除，未被替换的段仍被新的一层引用 */
+  @Override
+  public void delete() {
+    for (Run<K, V> run : runs) {
+      run.node.delete();
+    }
+  }
+
+  @Override
+  public void close() {
+    for (Run<K, V> run : runs) {
+      run.node.close();
+    }
+  }
+
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator() {
+    return new ConcatIterator(0, null);
+  }
+
+  /** 从可能包含 from 的段开始，之后的段都从头遍历 */
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator(K from) {
+    return new ConcatIterator(findRun(from), from);
+  }
+
+  /** 依次遍历各段 */
+  private class ConcatIterator implements Iterator<BPlusRecord<K, V>> {
+    private int next;
+    private K from;
+    private Iterator<BPlusRecord<K, V>> current = Collections.emptyIterator();
+
+    ConcatIterator(int next, K from) {
+      this.next = next;
+      this.from = from;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (!current.hasNext()) {
+        if (next >= runs.size()) {
+          return false;
+        }
+        LSMNode<K, V> node = runs.get(next++).node;
+        current = from == null ? node.iterator() : node.iterator(from);
+        from = null;
+      }
+      return true;
+    }
+
+    @Override
+    public BPlusRecord<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return current.next();
+    }
+  }
+
+  /** 从共享的记录中取出至多 limit 条，同时记下首尾的键 */
+  private static class RunIterator<K extends Comparable<K>, V>
+      implements Iterator<BPlusRecord<K, V>> {
+    private final Iterator<BPlusRecord<K, V>> records;
+    private int remaining;
+    private K first;
+    private K last;
+
+    RunIterator(Iterator<BPlusRecord<K, V>> records, int limit) {
+      this.records = records;
+      this.remaining = limit;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return remaining > 0 && records.hasNext();
+    }
+
+    @Override
+    public BPlusRecord<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      BPlusRecord<K, V> record = records.next();
+      remaining--;
+      if (first == null) {
+        first = record.getKey();
+      }
+      last = record.getKey();
+      return record;
+    }
+  }
+}
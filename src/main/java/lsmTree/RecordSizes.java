@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+
+/** 估算内存中一条记录占用的字节数，只区分常见的键值类型，用于按字节数触发合并 */
+final class RecordSizes {
+  // 记录对象本身以及在节点中的引用
+  static final int RECORD_OVERHEAD = 32;
+  private static final int OBJECT_OVERHEAD = 16;
+
+  private RecordSizes() {}
+
+  static long estimate(BPlusRecord<?, ?> record) {
+    return estimate(record.getKey(), record.getValue());
+  }
+
+  static long estimate(Object key, Object value) {
+    return RECORD_OVERHEAD + estimate(key) + estimate(value);
+  }
+
+  private static long estimate(Object value) {
+    if (value == null) {
+      return 0;
+    } else if (value instanceof String) {
+      return OBJECT_OVERHEAD * 2 + ((String) value).length() * 2L;
+    } else if (value instanceof byte[]) {
+      return OBJECT_OVERHEAD + ((byte[]) value).length;
+    } else if (value instanceof Long || value instanceof Double) {
+      return OBJECT_OVERHEAD + 8;
+    }
+    return OBJECT_OVERHEAD;
+  }
+}
@@ -0,0 +1,325 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LSMTree.get 前面的行缓存，缓存按键查询的最终结果，包括键不存在（或已被删除）的结果，命中时不需要查找任何一层。
+ *
+ * <p>容量按条数或估算字节数限制，0 表示不按该项限制。准入策略参考 W-TinyLFU：新条目先进入占容量 1% 的 LRU 窗口， 被挤出窗口时与主区最久未使用的条目比较访问频率（由
+ * Count-Min Sketch 估算并周期性减半），频率更高才进入主区， 否则被丢弃。这样偶尔访问一次的键不会把热点键挤出缓存。
+ *
+ * <p>缓存分为若干分片，各自加锁。写入键时使其缓存失效；读取未命中时先取得键的失效戳，查找完成后只有失效戳未变才放入缓存， 避免与并发写入交错时缓存旧值。失效戳按键的哈希分成 {@link
+ * #STAMP_STRIPES} 组，只有同组的键被写入才会使查找结果不被缓存，写入频繁时其他键仍能进入缓存。
+ */
+public class RowCache<K, V> {
+  private static final int MAX_SHARDS = 16;
+  // 每个分片至少的条数或字节数
+  private static final int MIN_SHARD_ENTRIES = 64;
+  private static final int MIN_SHARD_BYTES = 4096;
+  // 失效戳的组数，须为 2 的幂
+  private static final int STAMP_STRIPES = 1024;
+
+  private final Shard[] shards;
+  // 每组的失效戳，组中有键失效时在所在分片的锁内加一
+  private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * @param maxEntries 最多缓存的条数，0 表示不限制
+   * @param maxBytes 最多缓存的估算字节数，0 表示不限制
+   */
+  @SuppressWarnings("unchecked")
+  public RowCache(long maxEntries, long maxBytes) {
+    if (maxEntries < 0 || maxBytes < 0 || (maxEntries == 0 && maxBytes == 0)) {
+      throw new IllegalArgumentException("either maxEntries or maxBytes must be positive");
+    }
+    int count = MAX_SHARDS;
+    while (count > 1
+        && ((maxEntries > 0 && maxEntries / count < MIN_SHARD_ENTRIES)
+            || (maxBytes > 0 && maxBytes / count < MIN_SHARD_BYTES))) {
+      count >>= 1;
+    }
+    this.shards = (Shard[]) new RowCache<?, ?>.Shard[count];
+    for (int i = 0; i < count; i++) {
+      shards[i] = new Shard(maxEntries / count, maxBytes / count);
+    }
+  }
+
+  private Shard shard(Object key) {
+    int hash = key.hashCode();
+    return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+  }
+
+  /** 分片用哈希的低位，失效戳的组用打散后的高位，同一分片中的键也分散在不同的组中 */
+  private static int stripe(Object key) {
+    return (key.hashCode() * 0x9e3779b9) >>> (32 - Integer.numberOfTrailingZeros(STAMP_STRIPES));
+  }
+
+  /** 查找缓存的结果，未缓存时返回 null，同时记录一次访问 */
+  Entry<V> get(K key) {
+    Entry<V> entry = shard(key).get(key);
+    if (entry == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return entry;
+  }
+
+  /** 读取未命中后、查找各层之前调用，返回 key 的失效戳 */
+  long stamp(K key) {
+    return stamps.get(stripe(key));
+  }
+
+  /**
+   * 放入查找得到的结果
+   *
+   * @param value 为 null 表示键不存在
+   * @param stamp 查找前由 {@link #stamp} 取得的失效戳，之后同组中有键失效时不放入
+   */
+  void put(K key, V value, long stamp) {
+    shard(key).put(key, value, stamp);
+  }
+
+  /** 键被写入后调用 */
+  void invalidate(K key) {
+    shard(key).invalidate(key);
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /** 因容量被淘汰或未获准入的条数 */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /** 命中率，尚未访问过时返回 0 */
+  public double getHitRate() {
+    long hit = hits.sum(), total = hit + misses.sum();
+    return total == 0 ? 0 : (double) hit / total;
+  }
+
+  /** 当前缓存的条数 */
+  public long getSize() {
+    long size = 0;
+    for (Shard shard : shards) {
+      size += shard.size();
+    }
+    return size;
+  }
+
+  /** 当前缓存的估算字节数 */
+  public long getSizeInBytes() {
+    long bytes = 0;
+    for (Shard shard : shards) {
+      bytes += shard.bytes();
+    }
+    return bytes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "RowCache{size=%d, bytes=%d, hits=%d, misses=%d, evictions=%d}",
+        getSize(), getSizeInBytes(), getHitCount(), getMissCount(), getEvictionCount());
+  }
+
+  static final class Entry<V> {
+    // 为 null 表示键不存在
+    final V value;
+    final long bytes;
+
+    Entry(V value, long bytes) {
+      this.value = value;
+      this.bytes = bytes;
+    }
+  }
+
+  private final class Shard {
+    private final long windowMaxEntries;
+    private final long windowMaxBytes;
+    private final long mainMaxEntries;
+    private final long mainMaxBytes;
+    // 按访问顺序排列，第一个是最久未使用的条目
+    private final LinkedHashMap<K, Entry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Entry<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+    private long windowBytes = 0;
+    private long mainBytes = 0;
+    private final FrequencySketch sketch;
+
+    /** 参数为 0 表示不按该项限制，内部以 Long.MAX_VALUE 表示，使主区的上限为 0 时不会被当作不限制 */
+    Shard(long maxEntries, long maxBytes) {
+      this.windowMaxEntries = maxEntries > 0 ? Math.max(1, maxEntries / 100) : Long.MAX_VALUE;
+      this.windowMaxBytes = maxBytes > 0 ? Math.max(1, maxBytes / 100) : Long.MAX_VALUE;
+      this.mainMaxEntries = maxEntries > 0 ? maxEntries - windowMaxEntries : Long.MAX_VALUE;
+      this.mainMaxBytes = maxBytes > 0 ? maxBytes - windowMaxBytes : Long.MAX_VALUE;
+      this.sketch =
+          new FrequencySketch(
+              maxEntries > 0 ? maxEntries : maxBytes / (RecordSizes.RECORD_OVERHEAD * 2));
+    }
+
+    private boolean exceeds(long entries, long bytes, long maxEntries, long maxBytes) {
+      return entries > maxEntries || bytes > maxBytes;
+    }
+
+    synchronized Entry<V> get(K key) {
+      sketch.increment(key);
+      Entry<V> entry = window.get(key);
+      return entry != null ? entry : main.get(key);
+    }
+
+    synchronized void put(K key, V value, long stamp) {
+      if (stamps.get(stripe(key)) != stamp) {
+        return;
+      }
+      Entry<V> entry = new Entry<>(value, RecordSizes.estimate(key, value));
+      Entry<V> previous = main.get(key);
+      if (previous != null) {
+        main.put(key, entry);
+        mainBytes += entry.bytes - previous.bytes;
+        return;
+      }
+      previous = window.put(key, entry);
+      windowBytes += entry.bytes - (previous == null ? 0 : previous.bytes);
+      Iterator<Map.Entry<K, Entry<V>>> iterator = window.entrySet().iterator();
+      while (exceeds(window.size(), windowBytes, windowMaxEntries, windowMaxBytes)) {
+        Map.Entry<K, Entry<V>> candidate = iterator.next();
+        iterator.remove();
+        windowBytes -= candidate.getValue().bytes;
+        admit(candidate.getKey(), candidate.getValue());
+      }
+    }
+
+    /** 被挤出窗口的条目只有比主区中将被淘汰的条目访问更频繁时才进入主区 */
+    private void admit(K key, Entry<V> candidate) {
+      if (exceeds(1, candidate.bytes, mainMaxEntries, mainMaxBytes)) {
+        evictions.increment();
+        return;
+      }
+      Iterator<Map.Entry<K, Entry<V>>> iterator = main.entrySet().iterator();
+      if (exceeds(main.size() + 1, mainBytes + candidate.bytes, mainMaxEntries, mainMaxBytes)
+          && sketch.frequency(key) <= sketch.frequency(iterator.next().getKey())) {
+        evictions.increment();
+        return;
+      }
+      main.put(key, candidate);
+      mainBytes += candidate.bytes;
+      iterator = main.entrySet().iterator();
+      while (exceeds(main.size(), mainBytes, mainMaxEntries, mainMaxBytes)) {
+        mainBytes -= iterator.next().getValue().bytes;
+        iterator.remove();
+        evictions.increment();
+      }
+    }
+
+    synchronized void invalidate(K key) {
+      stamps.incrementAndGet(stripe(key));
+      Entry<V> entry = window.remove(key);
+      if (entry != null) {
+        windowBytes -= entry.bytes;
+      }
+      entry = main.remove(key);
+      if (entry != null) {
+        mainBytes -= entry.bytes;
+      }
+    }
+
+    synchronized int size() {
+      return window.size() + main.size();
+    }
+
+    synchronized long bytes() {
+      return windowBytes + mainBytes;
+    }
+  }
+
+  /** 4 行 4 位饱和计数器的 Count-Min Sketch，计数总和达到阈值后全部减半，使频率反映近期的访问 */
+  private static final class FrequencySketch {
+    private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final int MAX_COUNT = 15;
+    private static final int MAX_WIDTH = 1 << 22;
+
+    private final byte[][] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions = 0;
+
+    FrequencySketch(long expectedEntries) {
+      // 每个条目约 4 个计数器，减少冷门键冲突到同一计数器上
+      int width = 16;
+      while (width < expectedEntries * 4 && width < MAX_WIDTH) {
+        width <<= 1;
+      }
+      this.table = new byte[SEEDS.length][width];
+      this.mask = width - 1;
+      this.sampleSize = (int) Math.min(Integer.MAX_VALUE, Math.max(16, expectedEntries) * 10);
+    }
+
+    private int index(int hash, int row) {
+      long h = (hash + SEEDS[row]) * SEEDS[row];
+      return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    int frequency(Object key) {
+      int hash = key.hashCode();
+      int frequency = MAX_COUNT;
+      for (int row = 0; row < table.length; row++) {
+        frequency = Math.min(frequency, table[row][index(hash, row)]);
+      }
+      return frequency;
+    }
+
+    void increment(Object key) {
+      int hash = key.hashCode();
+      boolean added = false;
+      for (int row = 0; row < table.length; row++) {
+        int index = index(hash, row);
+        if (table[row][index] < MAX_COUNT) {
+          table[row][index]++;
+          added = true;
+        }
+      }
+      if (added && ++additions >= sampleSize) {
+        for (byte[] counters : table) {
+          for (int i = 0; i < counters.length; i++) {
+            counters[i] >>= 1;
+          }
+        }
+        additions /= 2;
+      }
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * LSMTree 范围查询的结果，按键递增惰性地产生记录，墓碑记录已被隐藏。
+ *
+ * <p>迭代期间持有 LSM 树的一个版本，遍历结束时自动释放；提前放弃遍历时需要调用 {@link #close()}，否则被合并替换掉的层无法删除。
+ */
+public class ScanIterator<K extends Comparable<K>, V>
+    implements Iterator<BPlusRecord<K, V>>, Closeable {
+  private final Iterator<BPlusRecord<K, V>> records;
+  private final Predicate<? super K> inRange;
+  private Runnable onClose;
+  private BPlusRecord<K, V> nextRecord;
+
+  /**
+   * @param records 合并后的有序记录，各层已从起始键开始
+   * @param inRange 遇到第一个不满足条件的键时结束
+   * @param onClose 结束时调用一次
+   */
+  ScanIterator(
+      Iterator<BPlusRecord<K, V>> records, Predicate<? super K> inRange, Runnable onClose) {
+    this.records = records;
+    this.inRange = inRange;
+    this.onClose = onClose;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (nextRecord == null && onClose != null) {
+      if (!records.hasNext()) {
+        close();
+        break;
+      }
+      BPlusRecord<K, V> record = records.next();
+      if (!inRange.test(record.getKey())) {
+        close();
+        break;
+      }
+      if (!record.isDeleted()) {
+        nextRecord = record;
+      }
+    }
+    return nextRecord != null;
+  }
+
+  @Override
+  public BPlusRecord<K, V> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    BPlusRecord<K, V> record = nextRecord;
+    nextRecord = null;
+    return record;
+  }
+
+  @Override
+  public void close() {
+    nextRecord = null;
+    if (onClose != null) {
+      onClose.run();
+      onClose = null;
+    }
+  }
+}
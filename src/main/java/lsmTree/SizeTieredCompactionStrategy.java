@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 分级合并：level 0 以下每层由大小相近、键范围可能重叠的段组成（见 {@link TieredLSMNode}）。写满的 level 0 直接作为新的一段放入 level 1，某层积累到
+ * minRuns 段时一次归并成一段放入下一层，该层清空。配置了每层字节数上限时，估算字节数达到上限的层也会提前归并。
+ *
+ * <p>墓碑比例达到 {@link CompactionContext#tombstoneCompactionRatio()} 的层提前归并到下一层，最底层则原地归并成一段并丢弃墓碑。
+ *
+ * <p>每条记录在每层只被重写一次，写放大比整层合并小；代价是一层中有多段需要查找，读放大和空间放大更大，适合写入为主的场景。
+ */
+public class SizeTieredCompactionStrategy<K extends Comparable<K>, V>
+    implements CompactionStrategy<K, V> {
+  private final int minRuns;
+
+  /** @param minRuns 一层积累到多少段时合并，至少为 2 */
+  public SizeTieredCompactionStrategy(int minRuns) {
+    if (minRuns < 2) {
+      throw new IllegalArgumentException("minRuns must be at least 2: " + minRuns);
+    }
+    this.minRuns = minRuns;
+  }
+
+  @Override
+  public void compact(CompactionContext<K, V> context) {
+    List<LSMNode<K, V>> levels = new ArrayList<>(context.levels());
+    List<LSMNode<K, V>> runs = new ArrayList<>(runsOf(levels, 1));
+    LSMNode<K, V> memTable = context.oldestImmutable();
+    runs.add(0, context.levelFactory().flush(memTable, 1, context.maxSize(0)));
+    setLevel(levels, 1, new TieredLSMNode<>(runs, context.maxSize(1)));
+    context.install(
+        levels,
+        true,
+        context.levelFactory().reusesMemTable()
+            ? Collections.emptyList()
+            : Collections.singletonList(memTable));
+    // 归并只会增加下一层的段，逐层向下检查即可
+    for (int level = 1; level < context.levels().size(); level++) {
+      List<LSMNode<K, V>> levelRuns = runsOf(context.levels(), level);
+      long maxBytes = context.maxBytes(level);
+      if (levelRuns.size() >= minRuns
+          || (maxBytes > 0
+              && !levelRuns.isEmpty()
+              && context.levels().get(level).getSizeInBytes() >= maxBytes)) {
+        merge(context, level);
+      }
+    }
+    compactTombstones(context);
+  }
+
+  /** 墓碑比例过高的层提前向下归并，最底层则原地归并 */
+  private void compactTombstones(CompactionContext<K, V> context) {
+    double ratio = context.tombstoneCompactionRatio();
+    if (ratio <= 0) {
+      return;
+    }
+    for (int level = 1; level < context.levels().size(); level++) {
+      LSMNode<K, V> node = context.levels().get(level);
+      if (runsOf(context.levels(), level).isEmpty()
+          || node.getTombstoneCount() < node.getSize() * ratio) {
+        continue;
+      }
+      if (context.isBottommost(level)) {
+        purge(context, level);
+      } else {
+        merge(context, level);
+      }
+    }
+  }
+
+  /** 将最底层的全部段归并成一段并丢弃墓碑，该层之下没有更旧的记录 */
+  private void purge(CompactionContext<K, V> context, int level) {
+    List<LSMNode<K, V>> levels = new ArrayList<>(context.levels());
+    List<LSMNode<K, V>> runs = runsOf(levels, level);
+    int maxSize = context.maxSize(level);
+    Iterator<BPlusRecord<K, V>> records = new LiveRecordIterator<>(mergeRuns(runs));
+    LSMNode<K, V> run = context.levelFactory().create(level, maxSize, records);
+    setLevel(
+        levels,
+        level,
+        new TieredLSMNode<>(
+            run.isEmpty() ? Collections.emptyList() : Collections.singletonList(run), maxSize));
+    List<LSMNode<K, V>> obsolete = new ArrayList<>(runs);
+    if (run.isEmpty()) {
+      obsolete.add(run);
+    }
+    context.install(levels, false, obsolete);
+  }
+
+  private static <K extends Comparable<K>, V> Iterator<BPlusRecord<K, V>> mergeRuns(
+      List<LSMNode<K, V>> runs) {
+    List<Iterator<BPlusRecord<K, V>>> iterators = new ArrayList<>(runs.size());
+    for (LSMNode<K, V> run : runs) {
+      iterators.add(run.iterator());
+    }
+    return new MergingIterator<>(iterators);
+  }
+
+  /** 将第 level 层的全部段归并成一段，作为最新的一段放入下一层 */
+  private void merge(CompactionContext<K, V> context, int level) {
+    List<LSMNode<K, V>> levels = new ArrayList<>(context.levels());
+    List<LSMNode<K, V>> runs = runsOf(levels, level);
+    List<LSMNode<K, V>> greatLevelRuns = new ArrayList<>(runsOf(levels, level + 1));
+    Iterator<BPlusRecord<K, V>> records = mergeRuns(runs);
+    // 下一层已有的段更旧，只有下一层及以下都为空时才能丢弃墓碑
+    if (greatLevelRuns.isEmpty() && context.isBottommost(level + 1)) {
+      records = new LiveRecordIterator<>(records);
+    }
+    int maxSize = context.maxSize(level + 1);
+    greatLevelRuns.add(0, context.levelFactory().create(level + 1, maxSize, records));
+    setLevel(levels, level, new TieredLSMNode<>(Collections.emptyList(), context.maxSize(level)));
+    setLevel(levels, level + 1, new TieredLSMNode<>(greatLevelRuns, maxSize));
+    context.install(levels, false, runs);
+  }
+
+  private static <K extends Comparable<K>, V> void setLevel(
+      List<LSMNode<K, V>> levels, int level, LSMNode<K, V> node) {
+    if (level == levels.size()) {
+      levels.add(node);
+    } else {
+      levels.set(level, node);
+    }
+  }
+
+  private static <K extends Comparable<K>, V> List<LSMNode<K, V>> runsOf(
+      List<LSMNode<K, V>> levels, int level) {
+    return level < levels.size() && levels.get(level) instanceof TieredLSMNode
+        ? ((TieredLSMNode<K, V>) levels.get(level)).getRuns()
+        : Collections.emptyList();
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于无锁跳表的 level 0，支持多个线程同时写入和读取。
+ *
+ * <p>写入时整条替换 key 对应的记录而不修改已有记录，读取总能看到完整的记录。
+ */
+public class SkipListLSMNode<K extends Comparable<K>, V> implements LSMNode<K, V> {
+  protected final ConcurrentSkipListMap<K, BPlusRecord<K, V>> records =
+      new ConcurrentSkipListMap<>();
+  protected final AtomicInteger size = new AtomicInteger();
+  protected final AtomicInteger tombstoneCount = new AtomicInteger();
+  protected final AtomicLong sizeInBytes = new AtomicLong();
+  protected volatile int maxSize;
+
+  public SkipListLSMNode(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  @Override
+  public void insert(BPlusRecord<K, V> record) {
+    BPlusRecord<K, V> previous = records.put(record.getKey(), record);
+    if (previous == null) {
+      size.incrementAndGet();
+    }
+    sizeInBytes.addAndGet(
+        RecordSizes.estimate(record) - (previous == null ? 0 : RecordSizes.estimate(previous)));
+    int delta = (record.isDeleted() ? 1 : 0) - (previous != null && previous.isDeleted() ? 1 : 0);
+    if (delta != 0) {
+      tombstoneCount.addAndGet(delta);
+    }
+  }
+
+  @Override
+  public BPlusRecord<K, V> get(K key) {
+    return records.get(key);
+  }
+
+  @Override
+  public boolean isConcurrent() {
+    return true;
+  }
+
+  @Override
+  public void print() {
+    System.out.print("[SkipList]:");
+    for (BPlusRecord<K, V> record : records.values()) {
+      System.out.print(record + " ");
+    }
+    System.out.println();
+  }
+
+  @Override
+  public boolean needUnion() {
+    return size.get() >= maxSize;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size.get() == 0;
+  }
+
+  @Override
+  public int getSize() {
+    return size.get();
+  }
+
+  @Override
+  public long getSizeInBytes() {
+    return sizeInBytes.get();
+  }
+
+  @Override
+  public int getTombstoneCount() {
+    return tombstoneCount.get();
+  }
+
+  @Override
+  public void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  @Override
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /** 按键有序遍历，冻结后遍历得到的是完整的快照 */
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator() {
+    return records.values().iterator();
+  }
+
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator(K from) {
+    return records.tailMap(from).values().iterator();
+  }
+
+  @Override
+  public K lastKey() {
+    Map.Entry<K, BPlusRecord<K, V>> last = records.lastEntry();
+    return last == null ? null : last.getKey();
+  }
+}
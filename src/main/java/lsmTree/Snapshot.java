@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * LSMTree 某一时刻的只读视图，由 {@link LSMTree#snapshot()} 创建。读取只看到创建之前的写入，可以在多个线程中同时读取。快照引用的层在关闭前不会被删除，
+ * 使用完毕后必须关闭。
+ */
+public class Snapshot<K extends Comparable<K>, V> implements Closeable {
+  private final LSMTree<K, V> tree;
+  final Version<K, V> version;
+  // 创建时 level 0 的副本，代替之后可写的 level 0
+  final LSMNode<K, V> memTable;
+  private final long sequence;
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  Snapshot(LSMTree<K, V> tree, Version<K, V> version, LSMNode<K, V> memTable, long sequence) {
+    this.tree = tree;
+    this.version = version;
+    this.memTable = memTable;
+    this.sequence = sequence;
+  }
+
+  /** 创建快照时 {@link LSMTree#getSequence()} 的值，即快照包含的写入条数 */
+  public long getSequence() {
+    return sequence;
+  }
+
+  public V get(K key) {
+    checkOpen();
+    BPlusRecord<K, V> record = tree.find(version, key, memTable);
+    return (record == null || record.isDeleted()) ? null : record.getValue();
+  }
+
+  /** 按键递增遍历快照中的全部键值 */
+  public ScanIterator<K, V> scan() {
+    return scanWhile(null, key -> true);
+  }
+
+  /** 按键递增遍历快照中 [from, to) 范围内的键值，见 {@link LSMTree#scan(Comparable, Comparable)} */
+  public ScanIterator<K, V> scan(K from, K to) {
+    return scanWhile(from, to == null ? key -> true : key -> key.compareTo(to) < 0);
+  }
+
+  /** 见 {@link LSMTree#scanWhile}，返回的迭代器单独引用快照的版本，快照关闭后仍可读完 */
+  public ScanIterator<K, V> scanWhile(K from, Predicate<? super K> inRange) {
+    checkOpen();
+    if (!version.retain()) {
+      throw new IllegalStateException("snapshot is closed");
+    }
+    return tree.scan(version, from, inRange, memTable);
+  }
+
+  private void checkOpen() {
+    if (closed.get()) {
+      throw new IllegalStateException("snapshot is closed");
+    }
+  }
+
+  /** 释放快照引用的版本，可以重复调用 */
+  @Override
+  public void close() {
+    if (closed.compareAndSet(false, true)) {
+      tree.releaseVersion(version);
+    }
+  }
+}
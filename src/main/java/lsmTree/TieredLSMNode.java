@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 分级的一层：由多个键范围可能重叠的段组成，越新越靠前。查询时从新到旧依次查找，遍历时对各段做多路归并。
+ *
+ * <p>该层本身不可修改，合并时构建新的实例替换。
+ */
+public class TieredLSMNode<K extends Comparable<K>, V> implements LSMNode<K, V> {
+  private final List<LSMNode<K, V>> runs;
+  private final int size;
+  private final int tombstoneCount;
+  private final long sizeInBytes;
+  private int maxSize;
+
+  TieredLSMNode(List<LSMNode<K, V>> runs, int maxSize) {
+    this.runs = Collections.unmodifiableList(new ArrayList<>(runs));
+    this.maxSize = maxSize;
+    int size = 0, tombstoneCount = 0;
+    long sizeInBytes = 0;
+    for (LSMNode<K, V> run : runs) {
+      size += run.getSize();
+      tombstoneCount += run.getTombstoneCount();
+      sizeInBytes += run.getSizeInBytes();
+    }
+    this.size = size;
+    this.tombstoneCount = tombstoneCount;
+    this.sizeInBytes = sizeInBytes;
+  }
+
+  /** 各段，越新越靠前 */
+  List<LSMNode<K, V>> getRuns() {
+    return runs;
+  }
+
+  @Override
+  public void insert(BPlusRecord<K, V> record) {
+    throw new UnsupportedOperationException("tiered level is immutable");
+  }
+
+  @Override
+  public BPlusRecord<K, V> get(K key) {
+    for (LSMNode<K, V> run : runs) {
+      if (run.mightContain(key)) {
+        BPlusRecord<K, V> record = run.get(key);
+        if (record != null) {
+          return record;
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean mightContain(K key) {
+    for (LSMNode<K, V> run : runs) {
+      if (run.mightContain(key)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void print() {
+    System.out.printf("[Tiered]: runs=%d\n", runs.size());
+    for (LSMNode<K, V> run : runs) {
+      run.print();
+    }
+  }
+
+  @Override
+  public boolean needUnion() {
+    return size >= maxSize;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** 各段大小之和，同一个键出现在多段中时会重复计算 */
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public long getSizeInBytes() {
+    return sizeInBytes;
+  }
+
+  @Override
+  public int getTombstoneCount() {
+    return tombstoneCount;
+  }
+
+  @Override
+  public void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  @Override
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public void delete() {
+    for (LSMNode<K, V> run : runs) {
+      run.delete();
+    }
+  }
+
+  @Override
+  public void close() {
+    for (LSMNode<K, V> run : runs) {
+      run.close();
+    }
+  }
+
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator() {
+    List<Iterator<BPlusRecord<K, V>>> iterators = new ArrayList<>(runs.size());
+    for (LSMNode<K, V> run : runs) {
+      iterators.add(run.iterator());
+    }
+    return new MergingIterator<>(iterators);
+  }
+
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator(K from) {
+    List<Iterator<BPlusRecord<K, V>>> iterators = new ArrayList<>(runs.size());
+    for (LSMNode<K, V> run : runs) {
+      iterators.add(run.iterator(from));
+    }
+    return new MergingIterator<>(iterators);
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LSM 树某一时刻各层的不可变视图。
+ *
+ * <p>读取时先 {@link #retain()} 当前版本，之后无需加锁即可读取其中的各层，读完再 {@link #release()}。合并产生新版本时，被替换的层记录在旧版本的
+ * obsolete 中，等旧版本以及更早的版本都不再被引用后才删除。
+ */
+class Version<K extends Comparable<K>, V> {
+  // 各层，level 0 为可写的内存树
+  final List<LSMNode<K, V>> nodes;
+  // 已写满、等待合并到 level 1 的 level 0，越新越靠前
+  final List<LSMNode<K, V>> immutableNodes;
+  // 被下一个版本替换掉的层
+  List<LSMNode<K, V>> obsolete = Collections.emptyList();
+  // 该版本不再被引用
+  boolean dead = false;
+
+  // 作为当前版本时持有一个引用
+  private final AtomicInteger refs = new AtomicInteger(1);
+
+  Version(List<LSMNode<K, V>> nodes, List<LSMNode<K, V>> immutableNodes) {
+    this.nodes = Collections.unmodifiableList(nodes);
+    this.immutableNodes = Collections.unmodifiableList(immutableNodes);
+  }
+
+  /** 增加引用，版本已经不再被引用时返回 false */
+  boolean retain() {
+    while (true) {
+      int current = refs.get();
+      if (current == 0) {
+        return false;
+      }
+      if (refs.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /** 减少引用，返回是否已不再被引用 */
+  boolean release() {
+    return refs.decrementAndGet() == 0;
+  }
+}
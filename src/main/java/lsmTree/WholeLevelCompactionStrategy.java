@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 整层合并：level 0 以下每层是一个整体，第 level 层最多 L0Size * k^level 条记录。上层写满后与下一层整体归并，下一层为空时直接下移。
+ *
+ * <p>读取时每层只需查一次，但每次合并都要重写整个下一层，合并的工作量随最大的一层增长。
+ */
+public class WholeLevelCompactionStrategy<K extends Comparable<K>, V>
+    implements CompactionStrategy<K, V> {
+  // 预计会连续向下合并时，是否一次归并多层
+  private final boolean multiLevelMerge;
+
+  public WholeLevelCompactionStrategy() {
+    this(true);
+  }
+
+  /** @param multiLevelMerge 预计会连续向下合并时，是否把沿途各层一次归并到最终所在的层，而不是逐层重写 */
+  public WholeLevelCompactionStrategy(boolean multiLevelMerge) {
+    this.multiLevelMerge = multiLevelMerge;
+  }
+
+  @Override
+  public void compact(CompactionContext<K, V> context) {
+    merge(context, context.oldestImmutable(), 0);
+    compactTombstones(context);
+  }
+
+  /** 墓碑比例过高的层提前向下合并，最底层则原地重写，墓碑在到达最底层时被丢弃 */
+  private void compactTombstones(CompactionContext<K, V> context) {
+    double ratio = context.tombstoneCompactionRatio();
+    if (ratio <= 0) {
+      return;
+    }
+    for (int level = 1; level < context.levels().size(); level++) {
+      LSMNode<K, V> node = context.levels().get(level);
+      if (node.isEmpty() || node.getTombstoneCount() < node.getSize() * ratio) {
+        continue;
+      }
+      if (context.isBottommost(level)) {
+        purge(context, node, level);
+      } else {
+        merge(context, node, level);
+      }
+    }
+  }
+
+  /** 重写最底层，丢弃其中的墓碑 */
+  private void purge(CompactionContext<K, V> context, LSMNode<K, V> node, int level) {
+    LSMNode<K, V> newNode =
+        context
+            .levelFactory()
+            .create(level, node.getMaxSize(), new LiveRecordIterator<>(node.iterator()));
+    List<LSMNode<K, V>> levels = new ArrayList<>(context.levels());
+    levels.set(level, newNode);
+    context.install(levels, false, Collections.singletonList(node));
+  }
+
+  /**
+   * 合并相邻层级。开启多层合并时，若上层与下一层的大小之和已达到下一层的上限，预计合并结果还会继续向下合并，则把下一层也作为输入，直到某一层放得下为止，一次归并写入该层。
+   *
+   * @param node 待合并的树
+   * @param level 待合并的树所处的层级
+   */
+  private void merge(CompactionContext<K, V> context, LSMNode<K, V> node, int level) {
+    List<LSMNode<K, V>> levels = new ArrayList<>(context.levels());
+    // 从新到旧的输入
+    List<LSMNode<K, V>> sources = new ArrayList<>();
+    sources.add(node);
+    int target = level + 1;
+    if (multiLevelMerge) {
+      long total = node.getSize();
+      while (target < levels.size()
+          && !levels.get(target).isEmpty()
+          && total + levels.get(target).getSize() >= context.maxSize(target)) {
+        total += levels.get(target).getSize();
+        sources.add(levels.get(target));
+        target++;
+      }
+    }
+    int greatLevelTreeSize = context.maxSize(target);
+    LSMNode<K, V> greatLevelNode = target < levels.size() ? levels.get(target) : null;
+    if (greatLevelNode != null && !greatLevelNode.isEmpty()) {
+      sources.add(greatLevelNode);
+    }
+    boolean bottommost = context.isBottommost(target);
+    LSMNode<K, V> newNode;
+    List<LSMNode<K, V>> obsolete;
+    if (sources.size() == 1 && !(bottommost && node.getTombstoneCount() > 0)) {
+      // 如果 level + 1 层为空，则直接替换
+      newNode = promote(context, node, level, greatLevelTreeSize);
+      obsolete =
+          level == 0 && !context.levelFactory().reusesMemTable()
+              ? Collections.singletonList(node)
+              : Collections.emptyList();
+    } else {
+      // 否则归并各层，移动到最底层时去掉墓碑
+      newNode = mergeNodes(context, target, greatLevelTreeSize, sources, bottommost);
+      obsolete = sources;
+    }
+    if (target == levels.size()) {
+      levels.add(newNode);
+    } else {
+      levels.set(target, newNode);
+    }
+    for (int i = Math.max(level, 1); i < target; i++) {
+      levels.set(i, context.emptyLevel(i));
+    }
+    context.install(levels, level == 0, obsolete);
+    if (context.isFull(newNode, target)) {
+      merge(context, newNode, target);
+    }
+  }
+
+  /** 将第 level 层整体移动到下一层，level 0 需要由 levelFactory 转换存储方式 */
+  private LSMNode<K, V> promote(
+      CompactionContext<K, V> context, LSMNode<K, V> node, int level, int maxSize) {
+    if (level == 0) {
+      return context.levelFactory().flush(node, level + 1, maxSize);
+    }
+    node.setMaxSize(maxSize);
+    return node;
+  }
+
+  /**
+   * 多路归并若干层，各层的记录都已按键有序，键相同时取较新的一层，归并后由 levelFactory 构建新的一层
+   *
+   * @param level 结果所处的层级
+   * @param maxSize 结果的最大大小
+   * @param nodes 待合并的各层，越新越靠前
+   * @param bottommost 结果是否为最底层，是则丢弃墓碑及被其遮蔽的记录
+   * @return 合并结果
+   */
+  private LSMNode<K, V> mergeNodes(
+      CompactionContext<K, V> context,
+      int level,
+      int maxSize,
+      List<LSMNode<K, V>> nodes,
+      boolean bottommost) {
+    List<Iterator<BPlusRecord<K, V>>> iterators = new ArrayList<>(nodes.size());
+    for (LSMNode<K, V> node : nodes) {
+      iterators.add(node.iterator());
+    }
+    Iterator<BPlusRecord<K, V>> records = new MergingIterator<>(iterators);
+    return context
+        .levelFactory()
+        .create(level, maxSize, bottommost ? new LiveRecordIterator<>(records) : records);
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree;
+
+import bplustree.BPlusRecord;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/** 一组插入和删除，通过 {@link LSMTree#write(WriteBatch)} 整体写入。对同一个键的多次写入以最后一次为准 */
+public class WriteBatch<K extends Comparable<K>, V> {
+  private final List<BPlusRecord<K, V>> records = new ArrayList<>();
+
+  public WriteBatch<K, V> put(K key, V value) {
+    records.add(new BPlusRecord<>(key, value));
+    return this;
+  }
+
+  public WriteBatch<K, V> delete(K key) {
+    records.add(new BPlusRecord<>(key, true));
+    return this;
+  }
+
+  /** 加入的写入次数，包括对同一个键的重复写入 */
+  public int size() {
+    return records.size();
+  }
+
+  public boolean isEmpty() {
+    return records.isEmpty();
+  }
+
+  public void clear() {
+    records.clear();
+  }
+
+  /** 按键递增排序，同一个键只保留最后一次写入 */
+  List<BPlusRecord<K, V>> sortedRecords() {
+    List<BPlusRecord<K, V>> sorted = new ArrayList<>(records);
+    // 稳定排序，相同键的写入保持加入的顺序
+    sorted.sort(Comparator.comparing(BPlusRecord::getKey));
+    List<BPlusRecord<K, V>> result = new ArrayList<>(sorted.size());
+    for (int i = 0; i < sorted.size(); i++) {
+      if (i + 1 == sorted.size()
+          || sorted.get(i).getKey().compareTo(sorted.get(i + 1).getKey()) != 0) {
+        result.add(sorted.get(i));
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.codec;
+
+import java.util.Arrays;
+
+/** 可以作为 LSMTree 键的字节数组，按无符号字节比较，较短的前缀在前 */
+public final class ByteKey implements Comparable<ByteKey> {
+  private final byte[] bytes;
+
+  public ByteKey(byte[] bytes) {
+    this.bytes = bytes;
+  }
+
+  /** 返回内部数组，调用方不应修改 */
+  public byte[] getBytes() {
+    return bytes;
+  }
+
+  @Override
+  public int compareTo(ByteKey other) {
+    return KeyCodec.compare(bytes, other.bytes);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof ByteKey && Arrays.equals(bytes, ((ByteKey) o).bytes);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(bytes);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      builder
+          .append(Character.forDigit((b >> 4) & 0xf, 16))
+          .append(Character.forDigit(b & 0xf, 16));
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 保序的键编码：两个键编码后按无符号字节逐个比较（较短的前缀在前）的结果与键本身 compareTo 的结果一致， 因此文件或堆外内存中的键可以直接按字节比较，不需要反序列化。
+ *
+ * <p>作为 Serializer 使用时，定长编码直接写出编码后的字节，变长编码在前面加上 int 长度前缀，长度前缀不参与比较。
+ *
+ * @param <K> 键的类型
+ */
+public interface KeyCodec<K> extends Serializer<K> {
+  int VARIABLE_LENGTH = -1;
+
+  /** 编码后的固定字节数，变长编码返回 {@link #VARIABLE_LENGTH} */
+  int fixedLength();
+
+  /** 保序编码 key */
+  byte[] encode(K key);
+
+  /** 从 buffer 的当前位置读取 length 字节并解码，position 移到其后 */
+  K decode(ByteBuffer buffer, int length);
+
+  @Override
+  default int serializedSize(K key) {
+    int fixedLength = fixedLength();
+    return fixedLength != VARIABLE_LENGTH ? fixedLength : Integer.BYTES + encode(key).length;
+  }
+
+  @Override
+  default void write(K key, ByteBuffer buffer) {
+    byte[] encoded = encode(key);
+    if (fixedLength() == VARIABLE_LENGTH) {
+      buffer.putInt(encoded.length);
+    }
+    buffer.put(encoded);
+  }
+
+  @Override
+  default K read(ByteBuffer buffer) {
+    int fixedLength = fixedLength();
+    return decode(buffer, fixedLength != VARIABLE_LENGTH ? fixedLength : buffer.getInt());
+  }
+
+  /**
+   * 不解码地比较 buffer 当前位置由 write 写出的键和已编码的 key，position 移到该键之后
+   *
+   * @return 小于、等于或大于 0，分别表示 buffer 中的键小于、等于或大于 key
+   */
+  default int compareEncoded(ByteBuffer buffer, byte[] key) {
+    int fixedLength = fixedLength();
+    int length = fixedLength != VARIABLE_LENGTH ? fixedLength : buffer.getInt();
+    int position = buffer.position();
+    int common = Math.min(length, key.length);
+    int comp = 0;
+    for (int i = 0; i < common && comp == 0; i++) {
+      comp = (buffer.get(position + i) & 0xff) - (key[i] & 0xff);
+    }
+    buffer.position(position + length);
+    return comp != 0 ? comp : length - key.length;
+  }
+
+  /** 按无符号字节比较两个编码后的键 */
+  static int compare(byte[] a, byte[] b) {
+    int common = Math.min(a.length, b.length);
+    for (int i = 0; i < common; i++) {
+      int comp = (a[i] & 0xff) - (b[i] & 0xff);
+      if (comp != 0) {
+        return comp;
+      }
+    }
+    return a.length - b.length;
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.codec;
+
+import java.nio.ByteBuffer;
+
+/** 内置的 KeyCodec 实现 */
+public class KeyCodecs {
+  /** 翻转符号位后按大端写出，负数排在正数之前 */
+  public static final KeyCodec<Integer> INTEGER =
+      new KeyCodec<Integer>() {
+        @Override
+        public int fixedLength() {
+          return Integer.BYTES;
+        }
+
+        @Override
+        public byte[] encode(Integer key) {
+          return ByteBuffer.allocate(Integer.BYTES).putInt(key ^ Integer.MIN_VALUE).array();
+        }
+
+        @Override
+        public Integer decode(ByteBuffer buffer, int length) {
+          return buffer.getInt() ^ Integer.MIN_VALUE;
+        }
+
+        @Override
+        public void write(Integer key, ByteBuffer buffer) {
+          buffer.putInt(key ^ Integer.MIN_VALUE);
+        }
+      };
+
+  /** 翻转符号位后按大端写出，负数排在正数之前 */
+  public static final KeyCodec<Long> LONG =
+      new KeyCodec<Long>() {
+        @Override
+        public int fixedLength() {
+          return Long.BYTES;
+        }
+
+        @Override
+        public byte[] encode(Long key) {
+          return ByteBuffer.allocate(Long.BYTES).putLong(key ^ Long.MIN_VALUE).array();
+        }
+
+        @Override
+        public Long decode(ByteBuffer buffer, int length) {
+          return buffer.getLong() ^ Long.MIN_VALUE;
+        }
+
+        @Override
+        public void write(Long key, ByteBuffer buffer) {
+          buffer.putLong(key ^ Long.MIN_VALUE);
+        }
+      };
+
+  /**
+   * 按大端写出每个 UTF-16 char。String.compareTo 逐个比较 UTF-16 char，UTF-8 的字节序在代理对和 U+E000 以上的字符之间与其不一致，
+   * 所以这里不用 UTF-8。
+   */
+  public static final KeyCodec<String> STRING =
+      new KeyCodec<String>() {
+        @Override
+        public int fixedLength() {
+          return VARIABLE_LENGTH;
+        }
+
+        @Override
+        public int serializedSize(String key) {
+          return Integer.BYTES + key.length() * 2;
+        }
+
+        @Override
+        public byte[] encode(String key) {
+          // 逐个写出 char，不经过 Charset，孤立的代理字符也能原样保留
+          byte[] bytes = new byte[key.length() * 2];
+          for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            bytes[i * 2] = (byte) (c >>> 8);
+            bytes[i * 2 + 1] = (byte) c;
+          }
+          return bytes;
+        }
+
+        @Override
+        public String decode(ByteBuffer buffer, int length) {
+          char[] chars = new char[length / 2];
+          for (int i = 0; i < chars.length; i++) {
+            chars[i] = buffer.getChar();
+          }
+          return new String(chars);
+        }
+      };
+
+  /** 原样写出字节 */
+  public static final KeyCodec<ByteKey> BYTES =
+      new KeyCodec<ByteKey>() {
+        @Override
+        public int fixedLength() {
+          return VARIABLE_LENGTH;
+        }
+
+        @Override
+        public int serializedSize(ByteKey key) {
+          return Integer.BYTES + key.getBytes().length;
+        }
+
+        @Override
+        public byte[] encode(ByteKey key) {
+          return key.getBytes();
+        }
+
+        @Override
+        public ByteKey decode(ByteBuffer buffer, int length) {
+          byte[] bytes = new byte[length];
+          buffer.get(bytes);
+          return new ByteKey(bytes);
+        }
+      };
+
+  private KeyCodecs() {}
+}
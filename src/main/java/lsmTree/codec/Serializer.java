@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 将键或值编码为字节，用于写入 WAL、SSTable 和堆外内存等数据。键使用 {@link KeyCodec} 时可以直接按字节比较
+ *
+ * @param <T> 被编码的类型
+ */
+public interface Serializer<T> {
+  /** 编码 value 所需的字节数 */
+  int serializedSize(T value);
+
+  /** 将 value 写入 buffer 的当前位置，buffer 的剩余空间至少为 serializedSize(value) */
+  void write(T value, ByteBuffer buffer);
+
+  /** 从 buffer 的当前位置读取一个值，并将 position 移到该值之后 */
+  T read(ByteBuffer buffer);
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/** 内置的 Serializer 实现 */
+public class Serializers {
+  public static final Serializer<Integer> INTEGER =
+      new Serializer<Integer>() {
+        @Override
+        public int serializedSize(Integer value) {
+          return Integer.BYTES;
+        }
+
+        @Override
+        public void write(Integer value, ByteBuffer buffer) {
+          buffer.putInt(value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer) {
+          return buffer.getInt();
+        }
+      };
+
+  public static final Serializer<Long> LONG =
+      new Serializer<Long>() {
+        @Override
+        public int serializedSize(Long value) {
+          return Long.BYTES;
+        }
+
+        @Override
+        public void write(Long value, ByteBuffer buffer) {
+          buffer.putLong(value);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer) {
+          return buffer.getLong();
+        }
+      };
+
+  /** 长度前缀 + UTF-8 */
+  public static final Serializer<String> STRING =
+      new Serializer<String>() {
+        @Override
+        public int serializedSize(String value) {
+          return Integer.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        @Override
+        public void write(String value, ByteBuffer buffer) {
+          byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+          buffer.putInt(bytes.length);
+          buffer.put(bytes);
+        }
+
+        @Override
+        public String read(ByteBuffer buffer) {
+          byte[] bytes = new byte[buffer.getInt()];
+          buffer.get(bytes);
+          return new String(bytes, StandardCharsets.UTF_8);
+        }
+      };
+
+  private Serializers() {}
+}
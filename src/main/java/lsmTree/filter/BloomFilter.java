@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.filter;
+
+/**
+ * 布隆过滤器。由一个 64 位哈希拆出两个 32 位哈希，按 h1 + i * h2 模拟 k 个哈希函数（Kirsch-Mitzenmacher）。
+ *
+ * <p>所有 key 的哈希事先收集好，按实际 key 数决定位数组大小。
+ */
+public class BloomFilter {
+  private final long[] bits;
+  private final long numBits;
+  private final int numHashes;
+
+  /**
+   * @param hashes 由 {@link #hash(Object)} 得到的各个 key 的哈希
+   * @param count hashes 中有效哈希的个数
+   * @param bitsPerKey 每个 key 占用的位数
+   */
+  public BloomFilter(long[] hashes, int count, int bitsPerKey) {
+    // 最优哈希函数个数为 bitsPerKey * ln2
+    this.numHashes = Math.max(1, Math.min(30, (int) Math.round(bitsPerKey * 0.69)));
+    long words = Math.max(1, ((long) count * bitsPerKey + 63) / 64);
+    this.bits = new long[(int) Math.min(words, Integer.MAX_VALUE - 8)];
+    this.numBits = (long) bits.length * 64;
+    for (int i = 0; i < count; i++) {
+      put(hashes[i]);
+    }
+  }
+
+  /** 将 key 的 hashCode 打散为 64 位哈希（MurmurHash3 的 fmix64） */
+  public static long hash(Object key) {
+    long h = key.hashCode();
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private void put(long hash) {
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < numHashes; i++) {
+      long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % numBits;
+      bits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  public boolean mightContain(Object key) {
+    long hash = hash(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < numHashes; i++) {
+      long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % numBits;
+      if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** 位数组占用的字节数 */
+  public long sizeInBytes() {
+    return (long) bits.length * Long.BYTES;
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.filter;
+
+import bplustree.BPlusRecord;
+import lsmTree.LSMNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/** 为一层附加布隆过滤器，其余操作都交给被包装的层 */
+public class BloomFilterLSMNode<K extends Comparable<K>, V> implements LSMNode<K, V> {
+  protected final LSMNode<K, V> node;
+  protected final BloomFilter filter;
+
+  public BloomFilterLSMNode(LSMNode<K, V> node, BloomFilter filter) {
+    this.node = node;
+    this.filter = filter;
+  }
+
+  @Override
+  public boolean mightContain(K key) {
+    return filter.mightContain(key);
+  }
+
+  public BloomFilter getFilter() {
+    return filter;
+  }
+
+  /** 被包装的层 */
+  public LSMNode<K, V> getNode() {
+    return node;
+  }
+
+  @Override
+  public void insert(BPlusRecord<K, V> record) {
+    throw new UnsupportedOperationException("level with bloom filter is immutable");
+  }
+
+  @Override
+  public BPlusRecord<K, V> get(K key) {
+    return node.get(key);
+  }
+
+  /** 只把可能存在的键交给被包装的层 */
+  @Override
+  public List<BPlusRecord<K, V>> getAll(List<K> keys) {
+    List<K> candidates = new ArrayList<>();
+    for (K key : keys) {
+      if (filter.mightContain(key)) {
+        candidates.add(key);
+      }
+    }
+    List<BPlusRecord<K, V>> found = node.getAll(candidates);
+    List<BPlusRecord<K, V>> records = new ArrayList<>(keys.size());
+    int next = 0;
+    for (K key : keys) {
+      boolean candidate = next < candidates.size() && candidates.get(next) == key;
+      records.add(candidate ? found.get(next++) : null);
+    }
+    return records;
+  }
+
+  @Override
+  public void print() {
+    node.print();
+  }
+
+  @Override
+  public boolean needUnion() {
+    return node.needUnion();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return node.isEmpty();
+  }
+
+  @Override
+  public int getSize() {
+    return node.getSize();
+  }
+
+  @Override
+  public long getSizeInBytes() {
+    return node.getSizeInBytes();
+  }
+
+  @Override
+  public int getTombstoneCount() {
+    return node.getTombstoneCount();
+  }
+
+  @Override
+  public void setMaxSize(int maxSize) {
+    node.setMaxSize(maxSize);
+  }
+
+  @Override
+  public int getMaxSize() {
+    return node.getMaxSize();
+  }
+
+  @Override
+  public void delete() {
+    node.delete();
+  }
+
+  @Override
+  public void close() {
+    node.close();
+  }
+
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator() {
+    return node.iterator();
+  }
+
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator(K from) {
+    return node.iterator(from);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.filter;
+
+import bplustree.BPlusRecord;
+import lsmTree.LSMNode;
+import lsmTree.LSMNodeFactory;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/** 在被包装的工厂构建每一层的同时收集 key 的哈希，并为该层构建布隆过滤器 */
+public class BloomFilterLSMNodeFactory<K extends Comparable<K>, V> implements LSMNodeFactory<K, V> {
+  private final LSMNodeFactory<K, V> factory;
+  private final int bitsPerKey;
+
+  public BloomFilterLSMNodeFactory(LSMNodeFactory<K, V> factory, int bitsPerKey) {
+    this.factory = factory;
+    this.bitsPerKey = bitsPerKey;
+  }
+
+  @Override
+  public LSMNode<K, V> create(int level, int maxSize, Iterator<BPlusRecord<K, V>> records) {
+    HashCollector collector = new HashCollector(records);
+    LSMNode<K, V> node = factory.create(level, maxSize, collector);
+    return new BloomFilterLSMNode<>(node, collector.build());
+  }
+
+  @Override
+  public LSMNode<K, V> flush(LSMNode<K, V> memTable, int level, int maxSize) {
+    return withFilter(factory.flush(memTable, level, maxSize));
+  }
+
+  @Override
+  public boolean reusesMemTable() {
+    return factory.reusesMemTable();
+  }
+
+  @Override
+  public File directory() {
+    return factory.directory();
+  }
+
+  @Override
+  public List<File> listFiles() {
+    return factory.listFiles();
+  }
+
+  /** 过滤器不写入文件，重新打开时读出全部键重建 */
+  @Override
+  public LSMNode<K, V> reopen(File file, int level, int maxSize) {
+    return withFilter(factory.reopen(file, level, maxSize));
+  }
+
+  private LSMNode<K, V> withFilter(LSMNode<K, V> node) {
+    HashCollector collector = new HashCollector(node.iterator());
+    while (collector.hasNext()) {
+      collector.next();
+    }
+    return new BloomFilterLSMNode<>(node, collector.build());
+  }
+
+  /** 透传记录，同时记下每个 key 的哈希 */
+  private class HashCollector implements Iterator<BPlusRecord<K, V>> {
+    private final Iterator<BPlusRecord<K, V>> records;
+    private long[] hashes = new long[64];
+    private int count = 0;
+
+    HashCollector(Iterator<BPlusRecord<K, V>> records) {
+      this.records = records;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return records.hasNext();
+    }
+
+    @Override
+    public BPlusRecord<K, V> next() {
+      BPlusRecord<K, V> record = records.next();
+      if (count == hashes.length) {
+        hashes = Arrays.copyOf(hashes, count * 2);
+      }
+      hashes[count++] = BloomFilter.hash(record.getKey());
+      return record;
+    }
+
+    BloomFilter build() {
+      return new BloomFilter(hashes, count, bitsPerKey);
+    }
+  }
+}
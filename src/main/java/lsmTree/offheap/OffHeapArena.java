@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一个层的堆外内存，从 {@link OffHeapChunkPool} 按块取得 direct ByteBuffer，只追加不回收，所有块随所属的层一起归还。
+ *
+ * <p>地址编码为 {@code (块下标 << 32) | 块内偏移}，单次分配不会跨块。
+ */
+class OffHeapArena {
+  private final OffHeapChunkPool pool;
+  private final List<ByteBuffer> chunks = new ArrayList<>();
+  private ByteBuffer current;
+  private long used = 0;
+
+  OffHeapArena(OffHeapChunkPool pool) {
+    this.pool = pool;
+  }
+
+  /** 分配 size 字节，返回其地址 */
+  long allocate(int size) {
+    if (current == null || current.capacity() - current.position() < size) {
+      // 超过块大小的数据单独占一块，不放回池中
+      current = size > pool.getChunkSize() ? ByteBuffer.allocateDirect(size) : pool.take();
+      chunks.add(current);
+    }
+    long address = ((long) (chunks.size() - 1) << 32) | current.position();
+    current.position(current.position() + size);
+    used += size;
+    return address;
+  }
+
+  /** 地址所在的块，只能用绝对位置读写 */
+  ByteBuffer chunk(long address) {
+    return chunks.get((int) (address >>> 32));
+  }
+
+  static int offset(long address) {
+    return (int) address;
+  }
+
+  /** 返回定位到 address 的独立视图，用于按相对位置读写，可在多个读线程中同时使用 */
+  ByteBuffer view(long address) {
+    ByteBuffer view = chunk(address).duplicate();
+    view.position(offset(address));
+    return view;
+  }
+
+  /** 已分配出去的字节数 */
+  long getUsedBytes() {
+    return used;
+  }
+
+  /** 将所有块归还到池中，调用时不能再有读取者 */
+  void release() {
+    for (ByteBuffer chunk : chunks) {
+      pool.give(chunk);
+    }
+    chunks.clear();
+    current = null;
+    used = 0;
+  }
+}
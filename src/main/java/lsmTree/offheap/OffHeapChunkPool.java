@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * 堆外内存块池，多个 {@link OffHeapLSMNode} 共享。层被释放时它的块回到池中，之后创建的层直接复用，不必等 GC 回收 direct ByteBuffer 才归还内存，
+ * 持续写入时堆外内存的占用不会随冻结的 level 0 数量增长。
+ *
+ * <p>池中最多保留 maxPooledChunks 块，多余的块和超过块大小的单独分配交给 GC 回收。线程安全。
+ */
+public class OffHeapChunkPool {
+  /** 默认的共享池，块大小为 {@link OffHeapLSMNode#DEFAULT_CHUNK_SIZE}，最多保留 64 块 */
+  public static final OffHeapChunkPool DEFAULT =
+      new OffHeapChunkPool(OffHeapLSMNode.DEFAULT_CHUNK_SIZE, 64);
+
+  private final int chunkSize;
+  private final int maxPooledChunks;
+  private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+
+  public OffHeapChunkPool(int chunkSize, int maxPooledChunks) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be positive");
+    }
+    this.chunkSize = chunkSize;
+    this.maxPooledChunks = maxPooledChunks;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /** 池中空闲的块数 */
+  public synchronized int getPooledChunks() {
+    return free.size();
+  }
+
+  /** 取出一块，池为空时新分配 */
+  synchronized ByteBuffer take() {
+    ByteBuffer chunk = free.poll();
+    return chunk == null ? ByteBuffer.allocateDirect(chunkSize) : chunk;
+  }
+
+  /** 归还一块，调用方之后不能再读写它 */
+  synchronized void give(ByteBuffer chunk) {
+    if (chunk.capacity() == chunkSize && free.size() < maxPooledChunks) {
+      chunk.clear();
+      free.push(chunk);
+    }
+  }
+}
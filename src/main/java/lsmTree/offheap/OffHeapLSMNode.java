@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.offheap;
+
+import bplustree.BPlusRecord;
+import lsmTree.LSMNode;
+import lsmTree.codec.KeyCodec;
+import lsmTree.codec.Serializer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 键值保存在堆外内存中的 level 0。记录序列化后写入 {@link OffHeapArena}，索引是同样位于堆外的跳表， 堆上只有跳表头和内存块本身，大的 level 0
+ * 不会产生大量存活到老年代的小对象。
+ *
+ * <p>跳表节点布局：{@code [值地址 long][高度 byte][next 地址 long * 高度][键]}，值单独写为 {@code [值]}，墓碑的值地址为 {@link
+ * #TOMBSTONE}。覆盖写追加新值并修改节点中的值地址，旧值占用的空间 直到该层被释放才回收，因此 getSizeInBytes 返回已写入的字节数，包括被覆盖的旧值，
+ * 但不包括内存块中尚未使用的部分。
+ *
+ * <p>键的 Serializer 是 {@link KeyCodec} 时，跳表查找直接比较堆外的编码字节，不反序列化键。
+ *
+ * <p>和 BPlusLSMNode 一样只支持单线程写入，读写由 LSMTree 的锁隔离。通过 {@code config.setMemTableFactory(maxSize -> new
+ * OffHeapLSMNode<>(keySerializer, valueSerializer, maxSize))} 使用；配合 BPlusLSMNodeFactory 时它会被直接移动到
+ * level 1，之后按有序迭代器参与合并。
+ */
+public class OffHeapLSMNode<K extends Comparable<K>, V> implements LSMNode<K, V> {
+  public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+  private static final int MAX_HEIGHT = 16;
+  private static final long NIL = -1;
+  private static final long TOMBSTONE = -1;
+  private static final int VALUE_OFFSET = 0;
+  private static final int HEIGHT_OFFSET = 8;
+  private static final int NEXT_OFFSET = 9;
+
+  private final Serializer<K> keySerializer;
+  private final Serializer<V> valueSerializer;
+  // 键使用保序编码时不为 null，查找时直接比较堆外的字节
+  private final KeyCodec<K> keyCodec;
+  private final OffHeapArena arena;
+  // 跳表头的各层 next 地址
+  private final long[] head = new long[MAX_HEIGHT];
+  // insert 时记录每一层的前驱节点，只有单线程写入，可以复用
+  private final long[] previous = new long[MAX_HEIGHT];
+  private int height = 1;
+  private int size = 0;
+  private int tombstoneCount = 0;
+  private int maxSize;
+
+  /** 使用共享的 {@link OffHeapChunkPool#DEFAULT} */
+  public OffHeapLSMNode(Serializer<K> keySerializer, Serializer<V> valueSerializer, int maxSize) {
+    this(keySerializer, valueSerializer, maxSize, OffHeapChunkPool.DEFAULT);
+  }
+
+  /** @param pool 取得和归还内存块的池，同一个 LSM 树先后创建的 level 0 应共用一个池 */
+  @SuppressWarnings("unchecked")
+  public OffHeapLSMNode(
+      Serializer<K> keySerializer,
+      Serializer<V> valueSerializer,
+      int maxSize,
+      OffHeapChunkPool pool) {
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.keyCodec = keySerializer instanceof KeyCodec ? (KeyCodec<K>) keySerializer : null;
+    this.arena = new OffHeapArena(pool);
+    this.maxSize = maxSize;
+    Arrays.fill(head, NIL);
+  }
+
+  private long forward(long node, int level) {
+    if (node == NIL) {
+      return head[level];
+    }
+    return arena.chunk(node).getLong(OffHeapArena.offset(node) + NEXT_OFFSET + level * 8);
+  }
+
+  private void setNext(long node, int level, long next) {
+    if (node == NIL) {
+      head[level] = next;
+    } else {
+      arena.chunk(node).putLong(OffHeapArena.offset(node) + NEXT_OFFSET + level * 8, next);
+    }
+  }
+
+  private int height(long node) {
+    return arena.chunk(node).get(OffHeapArena.offset(node) + HEIGHT_OFFSET);
+  }
+
+  private K key(long node) {
+    return keySerializer.read(arena.view(node + NEXT_OFFSET + height(node) * 8));
+  }
+
+  /** 比较 node 的键和 key，encoded 为使用 KeyCodec 时编码后的 key */
+  private int compare(long node, K key, byte[] encoded) {
+    ByteBuffer view = arena.view(node + NEXT_OFFSET + height(node) * 8);
+    return keyCodec != null
+        ? keyCodec.compareEncoded(view, encoded)
+        : keySerializer.read(view).compareTo(key);
+  }
+
+  private long valueAddress(long node) {
+    return arena.chunk(node).getLong(OffHeapArena.offset(node) + VALUE_OFFSET);
+  }
+
+  private BPlusRecord<K, V> record(long node, K key) {
+    long value = valueAddress(node);
+    return value == TOMBSTONE
+        ? new BPlusRecord<>(key, true)
+        : new BPlusRecord<>(key, valueSerializer.read(arena.view(value)));
+  }
+
+  /**
+   * 找到第一个键不小于 key 的节点
+   *
+   * @param encoded 使用 KeyCodec 时为编码后的 key，否则为 null
+   * @param previous 不为 null 时记录每一层最后一个键小于 key 的节点，NIL 表示跳表头
+   */
+  private long findGreaterOrEqual(K key, byte[] encoded, long[] previous) {
+    long node = NIL;
+    for (int level = height - 1; level >= 0; level--) {
+      long next = forward(node, level);
+      while (next != NIL && compare(next, key, encoded) < 0) {
+        node = next;
+        next = forward(node, level);
+      }
+      if (previous != null) {
+        previous[level] = node;
+      }
+      if (level == 0) {
+        return next;
+      }
+    }
+    return NIL;
+  }
+
+  private byte[] encode(K key) {
+    return keyCodec != null ? keyCodec.encode(key) : null;
+  }
+
+  private long writeValue(BPlusRecord<K, V> record) {
+    if (record.isDeleted()) {
+      return TOMBSTONE;
+    }
+    int valueSize = valueSerializer.serializedSize(record.getValue());
+    long address = arena.allocate(valueSize);
+    valueSerializer.write(record.getValue(), arena.view(address));
+    return address;
+  }
+
+  private static int randomHeight() {
+    // 每层晋升概率 1/4
+    int random = ThreadLocalRandom.current().nextInt();
+    int height = 1;
+    while (height < MAX_HEIGHT && (random & 3) == 0) {
+      height++;
+      random >>>= 2;
+    }
+    return height;
+  }
+
+  @Override
+  public void insert(BPlusRecord<K, V> record) {
+    K key = record.getKey();
+    byte[] encoded = encode(key);
+    long node = findGreaterOrEqual(key, encoded, previous);
+    if (node != NIL && compare(node, key, encoded) == 0) {
+      if (valueAddress(node) == TOMBSTONE) {
+        tombstoneCount--;
+      }
+      if (record.isDeleted()) {
+        tombstoneCount++;
+      }
+      arena.chunk(node).putLong(OffHeapArena.offset(node) + VALUE_OFFSET, writeValue(record));
+      return;
+    }
+    int nodeHeight = randomHeight();
+    for (int level = height; level < nodeHeight; level++) {
+      previous[level] = NIL;
+    }
+    height = Math.max(height, nodeHeight);
+    long value = writeValue(record);
+    long address = arena.allocate(NEXT_OFFSET + nodeHeight * 8 + keySerializer.serializedSize(key));
+    ByteBuffer chunk = arena.chunk(address);
+    int offset = OffHeapArena.offset(address);
+    chunk.putLong(offset + VALUE_OFFSET, value);
+    chunk.put(offset + HEIGHT_OFFSET, (byte) nodeHeight);
+    keySerializer.write(key, arena.view(address + NEXT_OFFSET + nodeHeight * 8));
+    for (int level = 0; level < nodeHeight; level++) {
+      setNext(address, level, forward(previous[level], level));
+      setNext(previous[level], level, address);
+    }
+    size++;
+    if (record.isDeleted()) {
+      tombstoneCount++;
+    }
+  }
+
+  @Override
+  public BPlusRecord<K, V> get(K key) {
+    byte[] encoded = encode(key);
+    long node = findGreaterOrEqual(key, encoded, null);
+    return node != NIL && compare(node, key, encoded) == 0 ? record(node, key) : null;
+  }
+
+  @Override
+  public void print() {
+    for (BPlusRecord<K, V> record : this) {
+      System.out.print(record + " ");
+    }
+    System.out.println();
+  }
+
+  @Override
+  public boolean needUnion() {
+    return size >= maxSize;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  /** 已写入堆外内存的字节数 */
+  @Override
+  public long getSizeInBytes() {
+    return arena.getUsedBytes();
+  }
+
+  @Override
+  public int getTombstoneCount() {
+    return tombstoneCount;
+  }
+
+  @Override
+  public void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  @Override
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator() {
+    return new NodeIterator(head[0]);
+  }
+
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator(K from) {
+    return new NodeIterator(findGreaterOrEqual(from, encode(from), null));
+  }
+
+  /** 从最高层开始每层走到最后一个节点 */
+  @Override
+  public K lastKey() {
+    long node = NIL;
+    for (int level = height - 1; level >= 0; level--) {
+      for (long next = forward(node, level); next != NIL; next = forward(node, level)) {
+        node = next;
+      }
+    }
+    return node == NIL ? null : key(node);
+  }
+
+  /** 内存块归还到池中，LSMTree 只在没有读取者引用该层后调用 */
+  @Override
+  public void delete() {
+    arena.release();
+  }
+
+  private class NodeIterator implements Iterator<BPlusRecord<K, V>> {
+    private long node;
+
+    NodeIterator(long node) {
+      this.node = node;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return node != NIL;
+    }
+
+    @Override
+    public BPlusRecord<K, V> next() {
+      if (node == NIL) {
+        throw new NoSuchElementException();
+      }
+      BPlusRecord<K, V> record = record(node, key(node));
+      node = forward(node, 0);
+      return record;
+    }
+  }
+}
@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.sstable;
+
+import bplustree.BPlusRecord;
+import lsmTree.LSMNode;
+import lsmTree.LowerBoundIterator;
+import lsmTree.codec.KeyCodec;
+import lsmTree.codec.Serializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * SSTable 文件支撑的一层的公共部分，文件格式见 {@link SSTableWriter}。
+ *
+ * <p>块内查找、批量查询、遍历和各项统计都在这里实现，子类只负责打开文件、定位块以及读出块的内容。
+ */
+public abstract class AbstractSSTableLSMNode<K extends Comparable<K>, V> implements LSMNode<K, V> {
+  protected final File file;
+  protected final Serializer<K> keySerializer;
+  protected final Serializer<V> valueSerializer;
+  // 键使用保序编码时不为 null，块内查找直接比较字节
+  protected final KeyCodec<K> keyCodec;
+
+  // 以下由子类在构造时通过 checkFileSize 和 readFooter 设置
+  protected int size;
+  protected int tombstoneCount;
+  protected long sizeInBytes;
+  protected int maxSize;
+
+  @SuppressWarnings("unchecked")
+  protected AbstractSSTableLSMNode(
+      File file, Serializer<K> keySerializer, Serializer<V> valueSerializer, int maxSize) {
+    this.file = file;
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.keyCodec = keySerializer instanceof KeyCodec ? (KeyCodec<K>) keySerializer : null;
+    this.maxSize = maxSize;
+  }
+
+  /** 文件末尾的 footer */
+  protected static final class Footer {
+    final long indexOffset;
+    final int indexLength;
+    final int blockCount;
+
+    private Footer(long indexOffset, int indexLength, int blockCount) {
+      this.indexOffset = indexOffset;
+      this.indexLength = indexLength;
+      this.blockCount = blockCount;
+    }
+  }
+
+  /** 校验并记录文件大小，文件短于 footer 时抛出异常 */
+  protected void checkFileSize(long fileSize) throws IOException {
+    if (fileSize < SSTableWriter.FOOTER_SIZE) {
+      throw new IOException("sstable is too short: " + file);
+    }
+    this.sizeInBytes = fileSize;
+  }
+
+  /** 从 footer 的当前位置解析 footer，并记录其中的记录数和墓碑数 */
+  protected Footer readFooter(ByteBuffer footer) throws IOException {
+    long indexOffset = footer.getLong();
+    int indexLength = footer.getInt();
+    int blockCount = footer.getInt();
+    int size = footer.getInt();
+    int tombstoneCount = footer.getInt();
+    if (footer.getInt() != SSTableWriter.MAGIC) {
+      throw new IOException("bad sstable magic: " + file);
+    }
+    this.size = size;
+    this.tombstoneCount = tombstoneCount;
+    return new Footer(indexOffset, indexLength, blockCount);
+  }
+
+  /** data block 的数量 */
+  protected abstract int blockCount();
+
+  /**
+   * 返回可能包含 key 的块，即第一个 key 小于等于 key 的最后一个块，不存在时返回 -1
+   *
+   * @param encoded 使用 KeyCodec 时为编码后的 key，否则为 null
+   */
+  protected abstract int findBlock(K key, byte[] encoded);
+
+  /** 读出一个块，返回的缓冲区由调用方独占，position 和 limit 为该块的起止位置。用于遍历和合并 */
+  protected abstract ByteBuffer readBlock(int block);
+
+  /** 点查询读取一个块，默认同 readBlock，带缓存的实现可覆盖 */
+  protected ByteBuffer lookupBlock(int block) {
+    return readBlock(block);
+  }
+
+  protected byte[] encode(K key) {
+    return keyCodec != null ? keyCodec.encode(key) : null;
+  }
+
+  /** 比较 buffer 当前位置的键和 key，并将 position 移到该键之后 */
+  protected int compareKey(ByteBuffer buffer, K key, byte[] encoded) {
+    return keyCodec != null
+        ? keyCodec.compareEncoded(buffer, encoded)
+        : keySerializer.read(buffer).compareTo(key);
+  }
+
+  protected BPlusRecord<K, V> decode(ByteBuffer block) {
+    byte flag = block.get();
+    K key = keySerializer.read(block);
+    if (flag == SSTableWriter.FLAG_DELETED) {
+      return new BPlusRecord<>(key, true);
+    }
+    return new BPlusRecord<>(key, valueSerializer.read(block));
+  }
+
+  @Override
+  public void insert(BPlusRecord<K, V> record) {
+    throw new UnsupportedOperationException("sstable is immutable: " + file);
+  }
+
+  @Override
+  public BPlusRecord<K, V> get(K key) {
+    byte[] encoded = encode(key);
+    int block = findBlock(key, encoded);
+    if (block < 0) {
+      return null;
+    }
+    return scan(lookupBlock(block), key, encoded);
+  }
+
+  /** 按键递增查找，落在同一块中的相邻键只读取一次该块，并从上一个键的位置继续扫描 */
+  @Override
+  public List<BPlusRecord<K, V>> getAll(List<K> keys) {
+    List<BPlusRecord<K, V>> records = new ArrayList<>(keys.size());
+    int current = -1;
+    ByteBuffer buffer = null;
+    for (K key : keys) {
+      byte[] encoded = encode(key);
+      int block = findBlock(key, encoded);
+      if (block < 0) {
+        records.add(null);
+        continue;
+      }
+      if (block != current) {
+        buffer = lookupBlock(block);
+        current = block;
+      }
+      records.add(scan(buffer, key, encoded));
+    }
+    return records;
+  }
+
+  /**
+   * 从 buffer 的当前位置向后查找 key。找到时 position 停在该记录之后，否则停在第一条键大于 key 的记录处
+   *
+   * @param encoded 使用 KeyCodec 时为编码后的 key，否则为 null
+   */
+  protected BPlusRecord<K, V> scan(ByteBuffer buffer, K key, byte[] encoded) {
+    while (buffer.hasRemaining()) {
+      int start = buffer.position();
+      boolean deleted = buffer.get() == SSTableWriter.FLAG_DELETED;
+      int comp = compareKey(buffer, key, encoded);
+      if (comp == 0) {
+        return deleted
+            ? new BPlusRecord<>(key, true)
+            : new BPlusRecord<>(key, valueSerializer.read(buffer));
+      } else if (comp > 0) {
+        buffer.position(start);
+        return null;
+      }
+      if (!deleted) {
+        // 跳过 value
+        valueSerializer.read(buffer);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void print() {
+    System.out.printf(
+        "[%s]: %s, blocks=%d\n", getClass().getSimpleName(), file.getName(), blockCount());
+    for (int i = 0; i < blockCount(); i++) {
+      System.out.printf(" [Block-%d]:", i);
+      ByteBuffer buffer = readBlock(i);
+      while (buffer.hasRemaining()) {
+        System.out.print(decode(buffer) + " ");
+      }
+      System.out.println();
+    }
+  }
+
+  @Override
+  public boolean needUnion() {
+    return size >= maxSize;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public long getSizeInBytes() {
+    return sizeInBytes;
+  }
+
+  @Override
+  public int getTombstoneCount() {
+    return tombstoneCount;
+  }
+
+  @Override
+  public void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  @Override
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  /** 删除文件，子类需要先释放自己持有的资源 */
+  @Override
+  public void delete() {
+    if (!file.delete() && file.exists()) {
+      throw new UncheckedIOException(new IOException("failed to delete sstable: " + file));
+    }
+  }
+
+  /** 按块顺序读出全部记录 */
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator() {
+    return blockIterator(0);
+  }
+
+  /** 从可能包含 from 的块开始读取，跳过块内小于 from 的记录 */
+  @Override
+  public Iterator<BPlusRecord<K, V>> iterator(K from) {
+    return new LowerBoundIterator<>(
+        blockIterator(Math.max(findBlock(from, encode(from)), 0)), from);
+  }
+
+  private Iterator<BPlusRecord<K, V>> blockIterator(int first) {
+    return new Iterator<BPlusRecord<K, V>>() {
+      private int block = first;
+      private ByteBuffer buffer = null;
+
+      @Override
+      public boolean hasNext() {
+        while (buffer == null || !buffer.hasRemaining()) {
+          if (block >= blockCount()) {
+            return false;
+          }
+          buffer = readBlock(block++);
+        }
+        return true;
+      }
+
+      @Override
+      public BPlusRecord<K, V> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return decode(buffer);
+      }
+    };
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.sstable;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多个 SSTableLSMNode 共享的块缓存，按字节数限制容量，缓存从文件读出的 data block，避免重复的 pread。
+ *
+ * <p>缓存分为若干分片，每个分片是一个按访问顺序排列的 LinkedHashMap，用各自的锁保护并独立按 LRU 淘汰， 每个分片的容量为总容量除以分片数。大于分片容量的块不缓存。
+ */
+public class BlockCache {
+  public static final int DEFAULT_SHARDS = 16;
+
+  private static final AtomicLong NEXT_FILE_ID = new AtomicLong();
+
+  private final Shard[] shards;
+  private final long capacity;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public BlockCache(long capacity) {
+    this(capacity, DEFAULT_SHARDS);
+  }
+
+  /**
+   * @param capacity 缓存的总字节数
+   * @param shards 分片数，必须是 2 的幂
+   */
+  public BlockCache(long capacity, int shards) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    if (shards <= 0 || (shards & (shards - 1)) != 0) {
+      throw new IllegalArgumentException("shards must be a power of two");
+    }
+    this.capacity = capacity;
+    this.shards = new Shard[shards];
+    for (int i = 0; i < shards; i++) {
+      this.shards[i] = new Shard(Math.max(1, capacity / shards));
+    }
+  }
+
+  /** 为一个新打开的文件分配缓存中使用的编号 */
+  public static long newFileId() {
+    return NEXT_FILE_ID.incrementAndGet();
+  }
+
+  private static long key(long fileId, int block) {
+    return (fileId << 32) | (block & 0xffffffffL);
+  }
+
+  private Shard shard(long key) {
+    // 混合高低位，避免同一文件的相邻块集中到少数分片
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return shards[(int) (hash >>> 32) & (shards.length - 1)];
+  }
+
+  /** 返回缓存的块，不存在时返回 null。返回的 buffer 与缓存共享数据，调用方只能读取其副本 */
+  public ByteBuffer get(long fileId, int block) {
+    long key = key(fileId, block);
+    ByteBuffer buffer = shard(key).get(key);
+    if (buffer == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return buffer;
+  }
+
+  public void put(long fileId, int block, ByteBuffer buffer) {
+    long key = key(fileId, block);
+    evictions.add(shard(key).put(key, buffer));
+  }
+
+  /** 文件删除时移除其所有块 */
+  public void invalidate(long fileId, int blockCount) {
+    for (int block = 0; block < blockCount; block++) {
+      long key = key(fileId, block);
+      shard(key).remove(key);
+    }
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /** 当前缓存的字节数 */
+  public long getSizeInBytes() {
+    long size = 0;
+    for (Shard shard : shards) {
+      size += shard.getSize();
+    }
+    return size;
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /** 命中率，尚未访问过时返回 0 */
+  public double getHitRate() {
+    long hit = hits.sum(), total = hit + misses.sum();
+    return total == 0 ? 0 : (double) hit / total;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "BlockCache{size=%d/%d, hits=%d, misses=%d, evictions=%d}",
+        getSizeInBytes(), capacity, getHitCount(), getMissCount(), getEvictionCount());
+  }
+
+  private static class Shard {
+    private final long capacity;
+    private final LinkedHashMap<Long, ByteBuffer> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+
+    Shard(long capacity) {
+      this.capacity = capacity;
+    }
+
+    synchronized ByteBuffer get(long key) {
+      return blocks.get(key);
+    }
+
+    /** 放入一个块，返回因此淘汰的块数 */
+    synchronized int put(long key, ByteBuffer buffer) {
+      int length = buffer.remaining();
+      if (length > capacity) {
+        return 0;
+      }
+      ByteBuffer previous = blocks.put(key, buffer);
+      if (previous != null) {
+        size -= previous.remaining();
+      }
+      size += length;
+      int evicted = 0;
+      Iterator<Map.Entry<Long, ByteBuffer>> iterator = blocks.entrySet().iterator();
+      while (size > capacity) {
+        // 按访问顺序排列，第一个是最久未使用的块
+        size -= iterator.next().getValue().remaining();
+        iterator.remove();
+        evicted++;
+      }
+      return evicted;
+    }
+
+    synchronized void remove(long key) {
+      ByteBuffer buffer = blocks.remove(key);
+      if (buffer != null) {
+        size -= buffer.remaining();
+      }
+    }
+
+    synchronized long getSize() {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.sstable;
+
+import lsmTree.codec.Serializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 通过内存映射读取的 SSTable，文件格式见 {@link SSTableWriter}。
+ *
+ * <p>整个文件映射为一个 MappedByteBuffer，打开时只记录每条索引项在映射中的位置以及各块的范围。查询时直接在映射上二分索引、解码块中的记录，
+ * 数据在页缓存中时不需要任何系统调用，也不会把数据拷贝到中间的字节数组。文件大小受 MappedByteBuffer 限制，不能超过 2GB。
+ *
+ * <p>删除时只删除文件，映射在被回收前仍然有效，正在进行的读取不受影响。
+ */
+public class MappedSSTableLSMNode<K extends Comparable<K>, V> extends AbstractSSTableLSMNode<K, V> {
+  protected final MappedByteBuffer buffer;
+
+  // 每条索引项在映射中的起始位置
+  protected final int[] indexPositions;
+  // 每个 data block 在映射中的偏移和长度
+  protected final int[] offsets;
+  protected final int[] lengths;
+
+  public MappedSSTableLSMNode(
+      File file, Serializer<K> keySerializer, Serializer<V> valueSerializer, int maxSize)
+      throws IOException {
+    super(file, keySerializer, valueSerializer, maxSize);
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      checkFileSize(fileSize);
+      if (fileSize > Integer.MAX_VALUE) {
+        throw new IOException("sstable is too large to map: " + file);
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+    }
+    ByteBuffer footerView = buffer.duplicate();
+    footerView.position(buffer.capacity() - SSTableWriter.FOOTER_SIZE);
+    Footer footer = readFooter(footerView);
+    ByteBuffer index = buffer.duplicate();
+    int indexOffset = (int) footer.indexOffset;
+    index.position(indexOffset).limit(indexOffset + footer.indexLength);
+    this.indexPositions = new int[footer.blockCount];
+    this.offsets = new int[footer.blockCount];
+    this.lengths = new int[footer.blockCount];
+    for (int i = 0; i < footer.blockCount; i++) {
+      indexPositions[i] = index.position();
+      keySerializer.read(index);
+      offsets[i] = (int) index.getLong();
+      lengths[i] = index.getInt();
+    }
+  }
+
+  @Override
+  protected int blockCount() {
+    return indexPositions.length;
+  }
+
+  /** 返回映射中该块范围的视图，不拷贝数据 */
+  @Override
+  protected ByteBuffer readBlock(int block) {
+    ByteBuffer view = buffer.duplicate();
+    view.limit(offsets[block] + lengths[block]).position(offsets[block]);
+    return view;
+  }
+
+  /** 直接在映射中的索引上二分，键使用保序编码时比较字节而不反序列化 */
+  @Override
+  protected int findBlock(K key, byte[] encoded) {
+    ByteBuffer view = buffer.duplicate();
+    int low = 0, high = indexPositions.length - 1, mid;
+    int comp;
+    while (low <= high) {
+      mid = (low + high) / 2;
+      view.position(indexPositions[mid]);
+      comp = compareKey(view, key, encoded);
+      if (comp == 0) {
+        return mid;
+      } else if (comp < 0) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return high;
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.sstable;
+
+import lsmTree.LSMNode;
+import lsmTree.codec.Serializer;
+
+import java.io.File;
+import java.io.IOException;
+
+/** 与 {@link SSTableLSMNodeFactory} 写出相同的文件，但通过内存映射读取 */
+public class MappedSSTableLSMNodeFactory<K extends Comparable<K>, V>
+    extends SSTableLSMNodeFactory<K, V> {
+
+  public MappedSSTableLSMNodeFactory(
+      File directory, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+    super(directory, keySerializer, valueSerializer);
+  }
+
+  public MappedSSTableLSMNodeFactory(
+      File directory, Serializer<K> keySerializer, Serializer<V> valueSerializer, int blockSize) {
+    super(directory, keySerializer, valueSerializer, blockSize);
+  }
+
+  @Override
+  protected LSMNode<K, V> open(File file, int maxSize) throws IOException {
+    return new MappedSSTableLSMNode<>(file, keySerializer, valueSerializer, maxSize);
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.sstable;
+
+import lsmTree.codec.Serializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 由不可变 SSTable 文件支撑的一层，文件格式见 {@link SSTableWriter}。
+ *
+ * <p>打开时只把稀疏的块索引读入内存，查询时二分索引找到目标块，再通过按位置读取（pread）读出该块并顺序查找。
+ *
+ * <p>指定 {@link BlockCache} 时，点查询先在缓存中查找目标块，未命中才读取文件并放入缓存。顺序遍历用于扫描和合并， 不经过缓存，避免一次大的合并把热点块挤出去。
+ */
+public class SSTableLSMNode<K extends Comparable<K>, V> extends AbstractSSTableLSMNode<K, V> {
+  protected final FileChannel channel;
+
+  // 稀疏索引：每个 data block 的第一个 key、偏移和长度
+  protected final List<K> firstKeys;
+  protected final long[] offsets;
+  protected final int[] lengths;
+  // 为 null 时不使用缓存
+  protected final BlockCache blockCache;
+  protected final long fileId = BlockCache.newFileId();
+
+  public SSTableLSMNode(
+      File file, Serializer<K> keySerializer, Serializer<V> valueSerializer, int maxSize)
+      throws IOException {
+    this(file, keySerializer, valueSerializer, maxSize, null);
+  }
+
+  public SSTableLSMNode(
+      File file,
+      Serializer<K> keySerializer,
+      Serializer<V> valueSerializer,
+      int maxSize,
+      BlockCache blockCache)
+      throws IOException {
+    super(file, keySerializer, valueSerializer, maxSize);
+    this.blockCache = blockCache;
+    this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    try {
+      long fileSize = channel.size();
+      checkFileSize(fileSize);
+      Footer footer =
+          readFooter(read(fileSize - SSTableWriter.FOOTER_SIZE, SSTableWriter.FOOTER_SIZE));
+      ByteBuffer index = read(footer.indexOffset, footer.indexLength);
+      this.firstKeys = new ArrayList<>(footer.blockCount);
+      this.offsets = new long[footer.blockCount];
+      this.lengths = new int[footer.blockCount];
+      for (int i = 0; i < footer.blockCount; i++) {
+        firstKeys.add(keySerializer.read(index));
+        offsets[i] = index.getLong();
+        lengths[i] = index.getInt();
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** 从 position 处按位置读取 length 字节 */
+  protected ByteBuffer read(long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("unexpected end of sstable: " + file);
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  @Override
+  protected int blockCount() {
+    return firstKeys.size();
+  }
+
+  @Override
+  protected ByteBuffer readBlock(int block) {
+    try {
+      return read(offsets[block], lengths[block]);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** 先在块缓存中查找，未命中时读取文件并放入缓存 */
+  @Override
+  protected ByteBuffer lookupBlock(int block) {
+    if (blockCache == null) {
+      return readBlock(block);
+    }
+    ByteBuffer cached = blockCache.get(fileId, block);
+    if (cached == null) {
+      cached = readBlock(block);
+      blockCache.put(fileId, block, cached);
+    }
+    return cached.duplicate();
+  }
+
+  /** 二分内存中的索引，不需要编码后的 key */
+  @Override
+  protected int findBlock(K key, byte[] encoded) {
+    int low = 0, high = firstKeys.size() - 1, mid;
+    int comp;
+    while (low <= high) {
+      mid = (low + high) / 2;
+      comp = firstKeys.get(mid).compareTo(key);
+      if (comp == 0) {
+        return mid;
+      } else if (comp < 0) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return high;
+  }
+
+  /** 关闭文件并删除 */
+  @Override
+  public void delete() {
+    close();
+    super.delete();
+  }
+
+  /** 失效缓存的块并关闭文件 */
+  @Override
+  public void close() {
+    if (blockCache != null) {
+      blockCache.invalidate(fileId, offsets.length);
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
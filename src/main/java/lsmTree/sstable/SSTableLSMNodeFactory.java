@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.sstable;
+
+import bplustree.BPlusRecord;
+import lsmTree.LSMNode;
+import lsmTree.LSMNodeFactory;
+import lsmTree.codec.Serializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/** 将 level 0 以下各层写为目录 directory 下的 SSTable 文件 */
+public class SSTableLSMNodeFactory<K extends Comparable<K>, V> implements LSMNodeFactory<K, V> {
+  public static final int DEFAULT_BLOCK_SIZE = 4096;
+  // 见 newFile
+  private static final Pattern FILE_NAME = Pattern.compile("L[0-9]+-[0-9]+\\.sst");
+
+  protected final File directory;
+  protected final Serializer<K> keySerializer;
+  protected final Serializer<V> valueSerializer;
+  protected final SSTableWriter<K, V> writer;
+  private final AtomicLong fileId = new AtomicLong();
+  protected BlockCache blockCache;
+
+  public SSTableLSMNodeFactory(
+      File directory, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+    this(directory, keySerializer, valueSerializer, DEFAULT_BLOCK_SIZE);
+  }
+
+  public SSTableLSMNodeFactory(
+      File directory, Serializer<K> keySerializer, Serializer<V> valueSerializer, int blockSize) {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new UncheckedIOException(new IOException("failed to create directory: " + directory));
+    }
+    this.directory = directory;
+    // 目录中已有上次打开时写出的文件，新文件的编号接着它们分配
+    String[] names = directory.list();
+    for (String name : names == null ? new String[0] : names) {
+      if (FILE_NAME.matcher(name).matches()) {
+        long id = Long.parseLong(name.substring(name.indexOf('-') + 1, name.length() - 4));
+        fileId.set(Math.max(fileId.get(), id));
+      }
+    }
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.writer = new SSTableWriter<>(keySerializer, valueSerializer, blockSize);
+  }
+
+  /**
+   * 设置各层共享的块缓存，之后打开的文件点查询时先查缓存。内存映射的文件直接读取页缓存，不使用该缓存
+   *
+   * @param blockCache 为 null 时不使用缓存
+   */
+  public SSTableLSMNodeFactory<K, V> setBlockCache(BlockCache blockCache) {
+    this.blockCache = blockCache;
+    return this;
+  }
+
+  public BlockCache getBlockCache() {
+    return blockCache;
+  }
+
+  /** 为第 level 层分配新的文件名 */
+  protected File newFile(int level) {
+    return new File(directory, String.format("L%d-%06d.sst", level, fileId.incrementAndGet()));
+  }
+
+  /** 打开写好的文件 */
+  protected LSMNode<K, V> open(File file, int maxSize) throws IOException {
+    return new SSTableLSMNode<>(file, keySerializer, valueSerializer, maxSize, blockCache);
+  }
+
+  @Override
+  public LSMNode<K, V> create(int level, int maxSize, Iterator<BPlusRecord<K, V>> records) {
+    File file = newFile(level);
+    try {
+      writer.write(file, records);
+      return open(file, maxSize);
+    } catch (IOException e) {
+      file.delete();
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public File directory() {
+    return directory;
+  }
+
+  @Override
+  public List<File> listFiles() {
+    List<File> files = new ArrayList<>();
+    String[] names = directory.list();
+    for (String name : names == null ? new String[0] : names) {
+      if (FILE_NAME.matcher(name).matches()) {
+        files.add(new File(directory, name));
+      }
+    }
+    return files;
+  }
+
+  @Override
+  public LSMNode<K, V> reopen(File file, int level, int maxSize) {
+    try {
+      return open(file, maxSize);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.sstable;
+
+import bplustree.BPlusRecord;
+import lsmTree.codec.Serializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+/**
+ * 将有序记录写为不可变的 SSTable 文件，文件格式为：
+ *
+ * <pre>
+ * | data block 0 | data block 1 | ... | index block | footer |
+ *
+ * data block:  | flag (byte) | key | value (仅非删除记录) | ...
+ * index block: | 每个 data block 的第一个 key | offset (long) | length (int) | ...
+ * footer:      | index offset (long) | index length (int) | block count (int)
+ *              | record count (int) | tombstone count (int) | magic (int) |
+ * </pre>
+ */
+public class SSTableWriter<K extends Comparable<K>, V> {
+  public static final int MAGIC = 0x53535442;
+  public static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES * 5;
+  public static final byte FLAG_DELETED = 1;
+
+  private final Serializer<K> keySerializer;
+  private final Serializer<V> valueSerializer;
+  private final int blockSize;
+
+  public SSTableWriter(Serializer<K> keySerializer, Serializer<V> valueSerializer, int blockSize) {
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * 写入文件
+   *
+   * @param file 目标文件，已存在时会被覆盖
+   * @param records 按键严格递增的记录
+   */
+  public void write(File file, Iterator<BPlusRecord<K, V>> records) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(
+            file.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer block = ByteBuffer.allocate(blockSize * 2);
+      ByteBuffer index = ByteBuffer.allocate(blockSize);
+      long offset = 0;
+      int blockCount = 0;
+      int recordCount = 0;
+      int tombstoneCount = 0;
+      K firstKey = null;
+      while (records.hasNext()) {
+        BPlusRecord<K, V> record = records.next();
+        int size = 1 + keySerializer.serializedSize(record.getKey());
+        if (!record.isDeleted()) {
+          size += valueSerializer.serializedSize(record.getValue());
+        }
+        if (block.position() > 0 && block.position() + size > blockSize) {
+          index = appendIndex(index, firstKey, offset, block.position());
+          offset += writeBlock(channel, block);
+          blockCount++;
+          firstKey = null;
+        }
+        if (size > block.remaining()) {
+          block = ByteBuffer.allocate(size);
+        }
+        if (firstKey == null) {
+          firstKey = record.getKey();
+        }
+        encode(record, block);
+        recordCount++;
+        if (record.isDeleted()) {
+          tombstoneCount++;
+        }
+      }
+      if (block.position() > 0) {
+        index = appendIndex(index, firstKey, offset, block.position());
+        offset += writeBlock(channel, block);
+        blockCount++;
+      }
+      int indexLength = index.position();
+      writeBlock(channel, index);
+
+      ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+      footer.putLong(offset);
+      footer.putInt(indexLength);
+      footer.putInt(blockCount);
+      footer.putInt(recordCount);
+      footer.putInt(tombstoneCount);
+      footer.putInt(MAGIC);
+      writeBlock(channel, footer);
+      // 文件可能随即被记入清单，需要先持久化
+      channel.force(true);
+    }
+  }
+
+  private void encode(BPlusRecord<K, V> record, ByteBuffer buffer) {
+    buffer.put(record.isDeleted() ? FLAG_DELETED : 0);
+    keySerializer.write(record.getKey(), buffer);
+    if (!record.isDeleted()) {
+      valueSerializer.write(record.getValue(), buffer);
+    }
+  }
+
+  private ByteBuffer appendIndex(ByteBuffer index, K firstKey, long offset, int length) {
+    int size = keySerializer.serializedSize(firstKey) + Long.BYTES + Integer.BYTES;
+    if (index.remaining() < size) {
+      ByteBuffer larger =
+          ByteBuffer.allocate(Math.max(index.capacity() * 2, index.position() + size));
+      index.flip();
+      larger.put(index);
+      index = larger;
+    }
+    keySerializer.write(firstKey, index);
+    index.putLong(offset);
+    index.putInt(length);
+    return index;
+  }
+
+  /** 写出 buffer 中 [0, position) 的数据并清空 buffer，返回写出的字节数 */
+  private int writeBlock(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    int length = buffer.remaining();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+    return length;
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.wal;
+
+/** WAL 的刷盘策略 */
+public class SyncPolicy {
+  public enum Mode {
+    // 每次写入在返回前都已 fsync，并发的写入可以共用一次 fsync
+    ALWAYS,
+    // 同 ALWAYS，但执行 fsync 的线程会先等待一段时间，让更多的写入加入同一次 fsync
+    GROUP_COMMIT,
+    // 每次写入在返回前写入文件但从不主动 fsync，何时落盘交给操作系统
+    NONE
+  }
+
+  private final Mode mode;
+  private final long intervalMillis;
+  private final long bytes;
+
+  private SyncPolicy(Mode mode, long intervalMillis, long bytes) {
+    this.mode = mode;
+    this.intervalMillis = intervalMillis;
+    this.bytes = bytes;
+  }
+
+  public static SyncPolicy always() {
+    return new SyncPolicy(Mode.ALWAYS, 0, 0);
+  }
+
+  /**
+   * 组提交：每次写入在返回前等待覆盖它的 fsync。执行 fsync 的线程先等待至多 intervalMillis 毫秒，期间其他线程追加的日志一起刷盘， 未刷盘的数据达到 bytes
+   * 字节时提前刷盘。返回的写入不会因崩溃丢失，代价是单次写入的延迟最多增加 intervalMillis。
+   *
+   * @param intervalMillis 刷盘前最多等待的时间，小于等于 0 表示不等待，只共用恰好同时进行的 fsync
+   * @param bytes 达到该字节数时不再等待，小于等于 0 表示只按时间等待
+   */
+  public static SyncPolicy groupCommit(long intervalMillis, long bytes) {
+    return new SyncPolicy(Mode.GROUP_COMMIT, intervalMillis, bytes);
+  }
+
+  public static SyncPolicy none() {
+    return new SyncPolicy(Mode.NONE, 0, 0);
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  public long getIntervalMillis() {
+    return intervalMillis;
+  }
+
+  public long getBytes() {
+    return bytes;
+  }
+}
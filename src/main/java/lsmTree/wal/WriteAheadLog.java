@@ -0,0 +1,541 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package lsmTree.wal;
+
+import bplustree.BPlusRecord;
+import lsmTree.codec.Serializer;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * 预写日志。每条日志的格式为：
+ *
+ * <pre>
+ * | body 长度 (int) | body 的 CRC32 (int) | 类型 (byte) | key | value (仅插入) |
+ * </pre>
+ *
+ * <p>批量写入的 body 为 {@code | 类型 (byte) | 记录数 (int) | 类型 | key | value | ... |}，整批共用一个校验和。
+ *
+ * <p>写入先进入内存缓冲区，按 {@link SyncPolicy} 决定何时写入文件并 fsync。打开后必须先调用一次 {@link #replay}
+ * 读出已有日志，文件尾部不完整或校验失败的日志会被截断。
+ *
+ * <p>需要刷盘的写入在返回前等待一次覆盖其日志结尾的 fsync。同一时刻只有一个写入线程（leader）执行 fsync，它会把缓冲区中其他线程追加的日志一并刷盘， 期间到达的写入等待下一个
+ * leader，因此并发的写入共用 fsync。调用方需要在自己的锁内追加时，可以用 {@link #write} 追加， 释放锁后再调用 {@link #awaitDurable} 等待。
+ *
+ * <p>写入文件或 fsync 失败后日志进入失败状态，此后的追加、刷盘和等待都会抛出 IOException，不会把未能刷盘的写入当作已持久化。
+ *
+ * <p>日志由多个文件依次组成，第一个文件为构造时传入的 file，{@link #rotate} 之后的日志写入 file.1、file.2 等新文件。偏移是在所有文件中连续计算的，
+ * {@link #discardBefore} 删除只包含某个偏移之前日志的文件，用于在这些写入已经持久化到其他地方后回收空间。
+ */
+public class WriteAheadLog<K extends Comparable<K>, V> implements Closeable {
+  private static final int HEADER_SIZE = Integer.BYTES * 2;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final byte TYPE_INSERT = 0;
+  private static final byte TYPE_DELETE = 1;
+  private static final byte TYPE_BATCH = 2;
+
+  private final File file;
+  // 各日志文件，越旧越靠前，最后一个为当前写入的文件
+  private final LinkedList<Segment> segments = new LinkedList<>();
+  // 当前写入的文件，只在 rotate 中替换，fsync 期间不会被替换
+  private FileChannel channel;
+  // 下一个日志文件的编号
+  private int nextSegment;
+  private final Serializer<K> keySerializer;
+  private final Serializer<V> valueSerializer;
+  private final SyncPolicy policy;
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+  private final CRC32 crc = new CRC32();
+
+  private boolean replayed = false;
+  // 已追加的日志的结尾在文件中的偏移，包括缓冲区中的数据
+  private long appendedOffset = 0;
+  // 已 fsync 的日志的结尾
+  private long syncedOffset = 0;
+  // 是否有线程正在执行 fsync
+  private boolean syncing = false;
+  // 写入文件或 fsync 失败的原因，非 null 后拒绝后续操作
+  private IOException failure;
+
+  public WriteAheadLog(
+      File file, Serializer<K> keySerializer, Serializer<V> valueSerializer, SyncPolicy policy)
+      throws IOException {
+    this.file = file;
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.policy = policy;
+    List<Integer> ids = new ArrayList<>();
+    String[] names = file.getAbsoluteFile().getParentFile().list();
+    for (String name : names == null ? new String[0] : names) {
+      if (name.equals(file.getName())) {
+        ids.add(0);
+      } else if (name.startsWith(file.getName() + ".")
+          && name.substring(file.getName().length() + 1).matches("[0-9]+")) {
+        ids.add(Integer.parseInt(name.substring(file.getName().length() + 1)));
+      }
+    }
+    if (ids.isEmpty()) {
+      ids.add(0);
+    }
+    ids.sort(null);
+    for (int id : ids) {
+      segments.add(new Segment(segmentFile(id)));
+    }
+    this.nextSegment = ids.get(ids.size() - 1) + 1;
+    this.channel = open(segments.getLast().file);
+  }
+
+  /** 日志文件及其第一条日志的偏移 */
+  private static final class Segment {
+    final File file;
+    long start;
+
+    Segment(File file) {
+      this.file = file;
+    }
+  }
+
+  private File segmentFile(int id) {
+    return id == 0 ? file : new File(file.getPath() + "." + id);
+  }
+
+  private static FileChannel open(File file) throws IOException {
+    return FileChannel.open(
+        file.toPath(),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+  }
+
+  /** 依次读出各日志文件中的记录，并截断尾部不完整的日志。某个文件中的日志不完整时，之后的文件不再回放并被删除 */
+  public synchronized void replay(Consumer<BPlusRecord<K, V>> consumer) throws IOException {
+    if (replayed) {
+      throw new IllegalStateException("wal has already been replayed: " + file);
+    }
+    long offset = 0;
+    for (int i = 0; i < segments.size(); i++) {
+      Segment segment = segments.get(i);
+      segment.start = offset;
+      boolean last = i == segments.size() - 1;
+      FileChannel segmentChannel = last ? channel : open(segment.file);
+      try {
+        long validEnd = replay(segmentChannel, consumer);
+        offset += validEnd;
+        if (validEnd < segmentChannel.size()) {
+          segmentChannel.truncate(validEnd);
+          if (!last) {
+            // 截断处之后的日志都不再可信
+            while (segments.size() > i + 1) {
+              deleteSegment(segments.removeLast());
+            }
+            channel.close();
+            channel = segmentChannel;
+            segmentChannel = null;
+          }
+        }
+      } finally {
+        if (segmentChannel != null && segmentChannel != channel) {
+          segmentChannel.close();
+        }
+      }
+    }
+    channel.position(channel.size());
+    appendedOffset = offset;
+    syncedOffset = offset;
+    replayed = true;
+  }
+
+  /** 读出一个日志文件中的记录，返回其中完整日志的长度 */
+  private long replay(FileChannel source, Consumer<BPlusRecord<K, V>> consumer) throws IOException {
+    long validEnd = 0;
+    source.position(0);
+    DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Channels.newInputStream(source), BUFFER_SIZE));
+    while (true) {
+      byte[] body;
+      int checksum;
+      try {
+        int length = in.readInt();
+        checksum = in.readInt();
+        if (length <= 0 || length > source.size() - validEnd - HEADER_SIZE) {
+          break;
+        }
+        body = new byte[length];
+        in.readFully(body);
+      } catch (EOFException e) {
+        break;
+      }
+      crc.reset();
+      crc.update(body, 0, body.length);
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      ByteBuffer bodyBuffer = ByteBuffer.wrap(body);
+      if (body[0] == TYPE_BATCH) {
+        bodyBuffer.get();
+        for (int i = bodyBuffer.getInt(); i > 0; i--) {
+          consumer.accept(decode(bodyBuffer));
+        }
+      } else {
+        consumer.accept(decode(bodyBuffer));
+      }
+      validEnd += HEADER_SIZE + body.length;
+    }
+    return validEnd;
+  }
+
+  /** 追加一条日志，按同步策略在返回前等待其刷盘 */
+  public void append(BPlusRecord<K, V> record) throws IOException {
+    awaitDurable(write(record));
+  }
+
+  /** 将一批记录写为一条日志，回放时要么全部读出，要么整批被截断。按同步策略在返回前等待其刷盘 */
+  public void appendBatch(List<BPlusRecord<K, V>> records) throws IOException {
+    awaitDurable(writeBatch(records));
+  }
+
+  /** 追加一条日志但不等待刷盘，返回日志结尾的偏移，用于之后调用 {@link #awaitDurable} */
+  public synchronized long write(BPlusRecord<K, V> record) throws IOException {
+    return appendBody(recordSize(record), target -> writeRecord(record, target));
+  }
+
+  /** 见 {@link #appendBatch} 和 {@link #write} */
+  public synchronized long writeBatch(List<BPlusRecord<K, V>> records) throws IOException {
+    int bodySize = 1 + Integer.BYTES;
+    for (BPlusRecord<K, V> record : records) {
+      bodySize += recordSize(record);
+    }
+    return appendBody(
+        bodySize,
+        target -> {
+          target.put(TYPE_BATCH);
+          target.putInt(records.size());
+          for (BPlusRecord<K, V> record : records) {
+            writeRecord(record, target);
+          }
+        });
+  }
+
+  private int recordSize(BPlusRecord<K, V> record) {
+    int size = 1 + keySerializer.serializedSize(record.getKey());
+    if (!record.isDeleted()) {
+      size += valueSerializer.serializedSize(record.getValue());
+    }
+    return size;
+  }
+
+  private void writeRecord(BPlusRecord<K, V> record, ByteBuffer target) {
+    target.put(record.isDeleted() ? TYPE_DELETE : TYPE_INSERT);
+    keySerializer.write(record.getKey(), target);
+    if (!record.isDeleted()) {
+      valueSerializer.write(record.getValue(), target);
+    }
+  }
+
+  /** 追加一条日志，body 由 writer 写入，返回日志结尾的偏移 */
+  private long appendBody(int bodySize, Consumer<ByteBuffer> writer) throws IOException {
+    if (!replayed) {
+      throw new IllegalStateException("wal must be replayed before appending: " + file);
+    }
+    checkFailure();
+    int size = HEADER_SIZE + bodySize;
+    ByteBuffer target = buffer;
+    if (size > buffer.remaining()) {
+      flushBuffer();
+      if (size > buffer.capacity()) {
+        target = ByteBuffer.allocate(size);
+      }
+    }
+    int start = target.position();
+    target.position(start + HEADER_SIZE);
+    writer.accept(target);
+    crc.reset();
+    crc.update(target.array(), start + HEADER_SIZE, bodySize);
+    target.putInt(start, bodySize);
+    target.putInt(start + Integer.BYTES, (int) crc.getValue());
+    if (target != buffer) {
+      target.flip();
+      writeFully(target);
+    }
+    appendedOffset += size;
+    if (policy.getBytes() > 0 && appendedOffset - syncedOffset >= policy.getBytes()) {
+      // 唤醒等待凑齐一组的 leader
+      notifyAll();
+    }
+    return appendedOffset;
+  }
+
+  /**
+   * 按同步策略等待 offset 之前的日志刷盘。ALWAYS 和 GROUP_COMMIT 等到覆盖 offset 的 fsync 完成，NONE 只把缓冲区写入文件、不 fsync，
+   * 因此进程崩溃不会丢失已返回的写入，操作系统崩溃仍可能丢失
+   *
+   * @param offset {@link #write} 或 {@link #writeBatch} 返回的偏移
+   */
+  public void awaitDurable(long offset) throws IOException {
+    if (policy.getMode() == SyncPolicy.Mode.NONE) {
+      synchronized (this) {
+        checkFailure();
+        // 并发的写入可能已经把这条日志写入文件
+        if (appendedOffset - buffer.position() < offset) {
+          flushBuffer();
+        }
+      }
+      return;
+    }
+    syncTo(offset, policy.getMode() == SyncPolicy.Mode.GROUP_COMMIT);
+  }
+
+  /** 将已追加的日志全部写入文件并 fsync */
+  public void sync() throws IOException {
+    long offset;
+    synchronized (this) {
+      offset = appendedOffset;
+    }
+    syncTo(offset, false);
+  }
+
+  /**
+   * 等待 offset 之前的日志刷盘。没有其他线程在 fsync 时由当前线程作为 leader 刷盘，否则等待正在进行的 fsync 结束后再检查。fsync
+   * 时不持有锁，其他线程可以继续追加
+   *
+   * @param gather 是否先按 {@link SyncPolicy#groupCommit} 的参数等待更多的写入加入这一组
+   */
+  private void syncTo(long offset, boolean gather) throws IOException {
+    long target;
+    FileChannel syncChannel;
+    synchronized (this) {
+      boolean interrupted = false;
+      while (true) {
+        checkFailure();
+        if (syncedOffset >= offset) {
+          if (interrupted) {
+            Thread.currentThread().interrupt();
+          }
+          return;
+        }
+        if (!syncing) {
+          break;
+        }
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      syncing = true;
+      try {
+        if (gather) {
+          interrupted |= gather();
+        }
+        flushBuffer();
+      } catch (IOException e) {
+        syncing = false;
+        throw fail(e);
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      target = appendedOffset;
+      syncChannel = channel;
+    }
+    IOException error = null;
+    try {
+      syncChannel.force(false);
+    } catch (IOException e) {
+      error = e;
+    }
+    synchronized (this) {
+      syncing = false;
+      if (error != null) {
+        throw fail(error);
+      }
+      syncedOffset = Math.max(syncedOffset, target);
+      notifyAll();
+    }
+  }
+
+  /** 刷盘后结束当前日志文件，之后的日志写入新的文件，返回切换处的偏移，它之前的日志都已持久化。调用方需要保证切换期间没有其他线程追加日志， 否则无法确定一条日志落在切换处的哪一侧 */
+  public synchronized long rotate() throws IOException {
+    if (!replayed) {
+      throw new IllegalStateException("wal must be replayed before rotating: " + file);
+    }
+    boolean interrupted = false;
+    // 正在进行的 fsync 使用当前文件，等它结束后再切换
+    while (syncing) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    checkFailure();
+    flushBuffer();
+    try {
+      channel.force(false);
+    } catch (IOException e) {
+      throw fail(e);
+    }
+    syncedOffset = appendedOffset;
+    notifyAll();
+    Segment segment = new Segment(segmentFile(nextSegment++));
+    segment.start = appendedOffset;
+    FileChannel next = open(segment.file);
+    // 新文件的目录项丢失时，之后刷盘的日志也会随之丢失
+    try (FileChannel parent =
+        FileChannel.open(
+            file.getAbsoluteFile().getParentFile().toPath(), StandardOpenOption.READ)) {
+      parent.force(true);
+    } catch (IOException e) {
+      next.close();
+      throw fail(e);
+    }
+    channel.close();
+    channel = next;
+    segments.add(segment);
+    return appendedOffset;
+  }
+
+  /**
+   * 删除只包含 offset 之前日志的文件，这些日志重启后不会再被回放。当前写入的文件不会被删除
+   *
+   * @param offset {@link #rotate} 返回的偏移，它之前的写入已经持久化到其他地方
+   */
+  public synchronized void discardBefore(long offset) throws IOException {
+    while (segments.size() > 1 && segments.get(1).start <= offset) {
+      deleteSegment(segments.removeFirst());
+    }
+  }
+
+  private static void deleteSegment(Segment segment) throws IOException {
+    if (!segment.file.delete() && segment.file.exists()) {
+      throw new IOException("failed to delete wal: " + segment.file);
+    }
+  }
+
+  /** leader 最多等待 intervalMillis，未刷盘的日志达到 bytes 时提前结束，返回等待期间是否被中断 */
+  private boolean gather() {
+    long intervalMillis = policy.getIntervalMillis();
+    if (intervalMillis <= 0) {
+      return false;
+    }
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    boolean interrupted = false;
+    while (policy.getBytes() <= 0 || appendedOffset - syncedOffset < policy.getBytes()) {
+      long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+      if (remaining <= 0) {
+        break;
+      }
+      try {
+        wait(remaining);
+      } catch (InterruptedException e) {
+        interrupted = true;
+        break;
+      }
+    }
+    return interrupted;
+  }
+
+  /** 记录失败并唤醒所有等待的线程，返回 e 以便抛出 */
+  private IOException fail(IOException e) {
+    if (failure == null) {
+      failure = e;
+    }
+    notifyAll();
+    return e;
+  }
+
+  private void checkFailure() throws IOException {
+    if (failure != null) {
+      throw new IOException("wal has failed: " + file, failure);
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    if (buffer.position() == 0) {
+      return;
+    }
+    buffer.flip();
+    writeFully(buffer);
+    buffer.clear();
+  }
+
+  private void writeFully(ByteBuffer source) throws IOException {
+    try {
+      while (source.hasRemaining()) {
+        channel.write(source);
+      }
+    } catch (IOException e) {
+      throw fail(e);
+    }
+  }
+
+  private BPlusRecord<K, V> decode(ByteBuffer body) {
+    byte type = body.get();
+    K key = keySerializer.read(body);
+    if (type == TYPE_DELETE) {
+      return new BPlusRecord<>(key, true);
+    }
+    return new BPlusRecord<>(key, valueSerializer.read(body));
+  }
+
+  /** 第一个日志文件，之后的文件在它的文件名后加上编号 */
+  public File getFile() {
+    return file;
+  }
+
+  /** 当前的各日志文件，越旧越靠前 */
+  public synchronized List<File> getFiles() {
+    List<File> files = new ArrayList<>(segments.size());
+    for (Segment segment : segments) {
+      files.add(segment.file);
+    }
+    return files;
+  }
+
+  /** 刷盘后关闭文件，已失败的日志直接关闭并抛出失败的原因 */
+  @Override
+  public void close() throws IOException {
+    try {
+      sync();
+    } finally {
+      synchronized (this) {
+        channel.close();
+      }
+    }
+  }
+}
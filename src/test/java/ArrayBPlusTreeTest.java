@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.ArrayBPlusTree;
+import bplustree.BPlusRecord;
+import lsmTree.ArrayBPlusLSMNode;
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class ArrayBPlusTreeTest {
+
+  @Test
+  public void matchesTreeMap() {
+    Random random = new Random(5);
+    for (int order = 3; order <= 8; order++) {
+      ArrayBPlusTree<Integer, Integer> tree = new ArrayBPlusTree<>(order);
+      // null 表示墓碑
+      TreeMap<Integer, Integer> expected = new TreeMap<>();
+      for (int i = 0; i < 3000; i++) {
+        int key = random.nextInt(1000);
+        Integer previous = expected.get(key);
+        if (random.nextInt(4) == 0) {
+          Assert.assertEquals(previous, tree.insertRemoveFlag(key));
+          expected.put(key, null);
+        } else {
+          Assert.assertEquals(previous, tree.insertOrUpdate(key, i));
+          expected.put(key, i);
+        }
+      }
+      Assert.assertEquals(expected.size(), tree.size());
+      Assert.assertEquals(
+          expected.values().stream().filter(v -> v == null).count(), tree.getTombstoneCount());
+      for (int key = -1; key <= 1000; key++) {
+        BPlusRecord<Integer, Integer> record = tree.get(key);
+        if (!expected.containsKey(key)) {
+          Assert.assertNull(record);
+        } else if (expected.get(key) == null) {
+          Assert.assertTrue(record.isDeleted());
+        } else {
+          Assert.assertEquals(expected.get(key), record.getValue());
+        }
+      }
+      assertRecords(expected, tree.iterator());
+      for (int from = -1; from <= 1001; from += 13) {
+        assertRecords(expected.tailMap(from, true), tree.iterator(from));
+      }
+    }
+  }
+
+  @Test
+  public void sequentialAndReverseInserts() {
+    ArrayBPlusTree<Integer, Integer> ascending = new ArrayBPlusTree<>(4);
+    ArrayBPlusTree<Integer, Integer> descending = new ArrayBPlusTree<>(4);
+    List<Integer> keys = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      ascending.insertOrUpdate(i, i);
+      descending.insertOrUpdate(999 - i, i);
+      keys.add(i);
+    }
+    Iterator<BPlusRecord<Integer, Integer>> a = ascending.iterator();
+    Iterator<BPlusRecord<Integer, Integer>> d = descending.iterator();
+    for (int key : keys) {
+      Assert.assertEquals(key, (int) a.next().getKey());
+      Assert.assertEquals(key, (int) d.next().getKey());
+    }
+    Assert.assertFalse(a.hasNext());
+    Assert.assertFalse(d.hasNext());
+  }
+
+  @Test
+  public void lsmTreeWithArrayMemTable() throws IOException {
+    LSMTree<Integer, Integer> tree =
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, Integer>(16, 3, 4)
+                .setMemTableFactory(maxSize -> new ArrayBPlusLSMNode<>(4, maxSize)));
+    List<Integer> keys = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      keys.add(i);
+    }
+    Collections.shuffle(keys, new Random(3));
+    for (int key : keys) {
+      tree.insert(key, key * 2);
+    }
+    for (int i = 0; i < 2000; i += 5) {
+      tree.remove(i);
+    }
+    for (int i = 0; i < 2000; i++) {
+      Assert.assertEquals(i % 5 == 0 ? null : i * 2, tree.get(i));
+    }
+    tree.close();
+  }
+
+  private static void assertRecords(
+      Map<Integer, Integer> expected, Iterator<BPlusRecord<Integer, Integer>> iterator) {
+    for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+      BPlusRecord<Integer, Integer> record = iterator.next();
+      Assert.assertEquals(entry.getKey(), record.getKey());
+      Assert.assertEquals(entry.getValue() == null, record.isDeleted());
+      if (entry.getValue() != null) {
+        Assert.assertEquals(entry.getValue(), record.getValue());
+      }
+    }
+    Assert.assertFalse(iterator.hasNext());
+  }
+}
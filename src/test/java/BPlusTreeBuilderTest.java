@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.BPlusRecord;
+import bplustree.BPlusTree;
+import bplustree.BPlusTreeBuilder;
+import lsmTree.BPlusLSMNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+public class BPlusTreeBuilderTest {
+
+  private BPlusTree<Integer, Integer> build(int order, double fillFactor, int size) {
+    BPlusTreeBuilder<Integer, Integer> builder = new BPlusTreeBuilder<>(order, fillFactor);
+    for (int i = 0; i < size; i++) {
+      builder.add(new BPlusRecord<>(i * 2, i));
+    }
+    Assert.assertEquals(size, builder.size());
+    return builder.build();
+  }
+
+  @Test
+  public void getAndIterate() {
+    for (int order = 3; order <= 8; order++) {
+      for (int size = 0; size < 200; size++) {
+        BPlusTree<Integer, Integer> tree = build(order, 1.0, size);
+        for (int i = 0; i < size; i++) {
+          Assert.assertEquals(i, (int) tree.get(i * 2).getValue());
+          Assert.assertNull(tree.get(i * 2 + 1));
+        }
+        int expected = 0;
+        for (Iterator<BPlusRecord<Integer, Integer>> iterator = tree.iterator();
+            iterator.hasNext(); ) {
+          Assert.assertEquals(expected * 2, (int) iterator.next().getKey());
+          expected++;
+        }
+        Assert.assertEquals(size, expected);
+      }
+    }
+  }
+
+  @Test
+  public void insertAndRemoveAfterBuild() {
+    BPlusTree<Integer, Integer> tree = build(4, 0.5, 100);
+    for (int i = 0; i < 100; i++) {
+      tree.insertOrUpdate(i * 2 + 1, -i);
+    }
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals(i, (int) tree.get(i * 2).getValue());
+      Assert.assertEquals(-i, (int) tree.get(i * 2 + 1).getValue());
+    }
+    for (int i = 0; i < 200; i += 3) {
+      tree.remove(i);
+      Assert.assertNull(tree.get(i));
+    }
+  }
+
+  @Test
+  public void insertReturnsPreviousRecord() {
+    BPlusTree<Integer, Integer> tree = build(4, 1.0, 100);
+    Assert.assertNull(tree.insertOrUpdate(1, 1));
+    Assert.assertEquals(5, (int) tree.insertOrUpdate(10, -5).getValue());
+    Assert.assertEquals(-5, (int) tree.insertRemoveFlag(10).getValue());
+    Assert.assertTrue(tree.insertOrUpdate(10, 5).isDeleted());
+    Assert.assertEquals(5, (int) tree.get(10).getValue());
+  }
+
+  @Test
+  public void lsmNodeCountsFollowReplacedRecords() {
+    BPlusLSMNode<Integer, Integer> node = new BPlusLSMNode<>(4, 100);
+    for (int i = 0; i < 50; i++) {
+      node.insert(new BPlusRecord<>(i, i));
+    }
+    long bytes = node.getSizeInBytes();
+    for (int i = 0; i < 50; i += 2) {
+      node.insert(new BPlusRecord<Integer, Integer>(i, true));
+    }
+    Assert.assertEquals(50, node.getSize());
+    Assert.assertEquals(25, node.getTombstoneCount());
+    for (int i = 0; i < 50; i += 2) {
+      node.insert(new BPlusRecord<>(i, -i));
+    }
+    Assert.assertEquals(50, node.getSize());
+    Assert.assertEquals(0, node.getTombstoneCount());
+    Assert.assertEquals(bytes, node.getSizeInBytes());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unsortedInput() {
+    new BPlusTreeBuilder<Integer, Integer>(3, 1.0)
+        .add(new BPlusRecord<>(2, 2))
+        .add(new BPlusRecord<>(1, 1));
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.BPlusRecord;
+import bplustree.BPlusTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class BPlusTreeSeekTest {
+
+  @Test
+  public void seekAfterInsertAndRemove() {
+    Random random = new Random(11);
+    for (int order = 3; order <= 6; order++) {
+      BPlusTree<Integer, Integer> tree = new BPlusTree<>(order);
+      NavigableSet<Integer> expected = new TreeSet<>();
+      List<Integer> keys = new ArrayList<>();
+      for (int i = 0; i < 300; i++) {
+        keys.add(i * 2);
+      }
+      Collections.shuffle(keys, random);
+      for (int key : keys) {
+        tree.insertOrUpdate(key, key);
+        expected.add(key);
+      }
+      for (int i = 0; i < 100; i++) {
+        tree.remove(keys.get(i));
+        expected.remove(keys.get(i));
+      }
+      for (int from = -1; from <= 600; from++) {
+        assertKeys(expected.tailSet(from, true), tree.iterator(from));
+        assertKeys(expected.headSet(from, true).descendingSet(), tree.descendingIterator(from));
+      }
+      assertKeys(expected.descendingSet(), tree.descendingIterator());
+    }
+  }
+
+  @Test
+  public void seekEmptyTree() {
+    BPlusTree<Integer, Integer> tree = new BPlusTree<>(3);
+    Assert.assertFalse(tree.iterator(1).hasNext());
+    Assert.assertFalse(tree.descendingIterator().hasNext());
+    Assert.assertFalse(tree.descendingIterator(1).hasNext());
+  }
+
+  private static void assertKeys(
+      Iterable<Integer> expected, Iterator<BPlusRecord<Integer, Integer>> iterator) {
+    for (int key : expected) {
+      Assert.assertTrue(iterator.hasNext());
+      Assert.assertEquals(key, (int) iterator.next().getKey());
+    }
+    Assert.assertFalse(iterator.hasNext());
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BackgroundCompactionTest {
+
+  private LSMTree<Integer, Integer> open(int maxImmutableNodes) {
+    return new LSMTree<>(
+        new LSMTreeConfig<Integer, Integer>(6, 2, 3)
+            .setBackgroundCompaction(true)
+            .setMaxImmutableNodes(maxImmutableNodes));
+  }
+
+  @Test
+  public void insertAndGet() throws IOException, InterruptedException {
+    for (int maxImmutableNodes = 1; maxImmutableNodes <= 4; maxImmutableNodes++) {
+      try (LSMTree<Integer, Integer> tree = open(maxImmutableNodes)) {
+        for (int i = 0; i < 2000; i++) {
+          tree.insert(i, i * 2);
+          // visible immediately, whether still in level 0 or already compacted
+          Assert.assertEquals(i * 2, (int) tree.get(i));
+        }
+        for (int i = 0; i < 2000; i += 3) {
+          tree.remove(i);
+        }
+        tree.awaitCompaction();
+        for (int i = 0; i < 2000; i++) {
+          Assert.assertEquals(i % 3 == 0 ? null : i * 2, tree.get(i));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void concurrentReader() throws Exception {
+    try (LSMTree<Integer, Integer> tree = open(2)) {
+      for (int i = 0; i < 1000; i++) {
+        tree.insert(i, i);
+      }
+      AtomicInteger mismatches = new AtomicInteger();
+      Thread reader =
+          new Thread(
+              () -> {
+                for (int round = 0; round < 20; round++) {
+                  for (int i = 0; i < 1000; i++) {
+                    Integer value = tree.get(i);
+                    if (value == null || value != i) {
+                      mismatches.incrementAndGet();
+                    }
+                  }
+                }
+              });
+      reader.start();
+      for (int i = 1000; i < 5000; i++) {
+        tree.insert(i, i);
+      }
+      reader.join();
+      Assert.assertEquals(0, mismatches.get());
+      tree.awaitCompaction();
+      for (int i = 0; i < 5000; i++) {
+        Assert.assertEquals(i, (int) tree.get(i));
+      }
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.BPlusRecord;
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.codec.Serializers;
+import lsmTree.sstable.BlockCache;
+import lsmTree.sstable.SSTableLSMNode;
+import lsmTree.sstable.SSTableLSMNodeFactory;
+import lsmTree.sstable.SSTableWriter;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BlockCacheTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void evictsLeastRecentlyUsed() {
+    BlockCache cache = new BlockCache(300, 1);
+    for (int block = 0; block < 3; block++) {
+      cache.put(1, block, ByteBuffer.allocate(100));
+    }
+    Assert.assertNotNull(cache.get(1, 0));
+    cache.put(1, 3, ByteBuffer.allocate(100));
+    Assert.assertNull(cache.get(1, 1));
+    Assert.assertNotNull(cache.get(1, 0));
+    Assert.assertNotNull(cache.get(1, 2));
+    Assert.assertNotNull(cache.get(1, 3));
+    Assert.assertEquals(300, cache.getSizeInBytes());
+    Assert.assertEquals(4, cache.getHitCount());
+    Assert.assertEquals(1, cache.getMissCount());
+    Assert.assertEquals(1, cache.getEvictionCount());
+
+    // 超过分片容量的块不缓存
+    cache.put(2, 0, ByteBuffer.allocate(301));
+    Assert.assertNull(cache.get(2, 0));
+    cache.invalidate(1, 4);
+    Assert.assertEquals(0, cache.getSizeInBytes());
+  }
+
+  @Test
+  public void shardsShareTheBudget() {
+    BlockCache cache = new BlockCache(1000, 4);
+    for (int block = 0; block < 100; block++) {
+      cache.put(1, block, ByteBuffer.allocate(50));
+    }
+    Assert.assertTrue(cache.getSizeInBytes() <= 1000);
+    Assert.assertTrue(cache.getEvictionCount() >= 80);
+  }
+
+  @Test
+  public void sstableReadsThroughCache() throws IOException {
+    List<BPlusRecord<Integer, String>> records = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      records.add(new BPlusRecord<>(i, "v" + i));
+    }
+    File file = folder.newFile();
+    new SSTableWriter<>(Serializers.INTEGER, Serializers.STRING, 64)
+        .write(file, records.iterator());
+    BlockCache cache = new BlockCache(1 << 20);
+    SSTableLSMNode<Integer, String> node =
+        new SSTableLSMNode<>(file, Serializers.INTEGER, Serializers.STRING, 1000, cache);
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 1000; i++) {
+        Assert.assertEquals("v" + i, node.get(i).getValue());
+      }
+    }
+    long misses = cache.getMissCount();
+    Assert.assertTrue(misses > 1 && misses < 1000);
+    Assert.assertEquals(3000 - misses, cache.getHitCount());
+    // 顺序遍历不经过缓存
+    for (BPlusRecord<Integer, String> record : node) {
+      Assert.assertNotNull(record);
+    }
+    Assert.assertEquals(3000, cache.getHitCount() + cache.getMissCount());
+    Assert.assertTrue(cache.getSizeInBytes() > 0);
+    node.delete();
+    Assert.assertEquals(0, cache.getSizeInBytes());
+  }
+
+  @Test
+  public void lsmTreeWithBlockCache() throws IOException {
+    File directory = folder.newFolder();
+    BlockCache cache = new BlockCache(1 << 16);
+    LSMTree<Integer, String> tree =
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, String>(16, 3, 4)
+                .setLevelFactory(
+                    new SSTableLSMNodeFactory<>(directory, Serializers.INTEGER, Serializers.STRING)
+                        .setBlockCache(cache)));
+    for (int i = 0; i < 1000; i++) {
+      tree.insert(i, "v" + i);
+    }
+    for (int round = 0; round < 2; round++) {
+      for (int i = 0; i < 1000; i++) {
+        Assert.assertEquals("v" + i, tree.get(i));
+      }
+    }
+    Assert.assertTrue(cache.getHitCount() > 0);
+    tree.close();
+    Assert.assertEquals(0, cache.getSizeInBytes());
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.filter.BloomFilter;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+  @Test
+  public void noFalseNegatives() {
+    int count = 10000;
+    long[] hashes = new long[count];
+    for (int i = 0; i < count; i++) {
+      hashes[i] = BloomFilter.hash(i * 2);
+    }
+    BloomFilter filter = new BloomFilter(hashes, count, 10);
+    int falsePositives = 0;
+    for (int i = 0; i < count; i++) {
+      Assert.assertTrue(filter.mightContain(i * 2));
+      if (filter.mightContain(i * 2 + 1)) {
+        falsePositives++;
+      }
+    }
+    // 10 bits per key gives about 1% false positives
+    Assert.assertTrue(falsePositives < count * 0.02);
+  }
+
+  @Test
+  public void emptyFilter() {
+    BloomFilter filter = new BloomFilter(new long[0], 0, 10);
+    Assert.assertFalse(filter.mightContain("key"));
+  }
+
+  @Test
+  public void lsmTreeWithFilters() {
+    LSMTree<Integer, Integer> tree =
+        new LSMTree<>(new LSMTreeConfig<Integer, Integer>(6, 2, 3).setBloomFilterBitsPerKey(10));
+    for (int i = 0; i < 500; i++) {
+      tree.insert(i, i * 2);
+    }
+    for (int i = 0; i < 500; i += 3) {
+      tree.remove(i);
+    }
+    for (int i = 0; i < 500; i++) {
+      Assert.assertEquals(i % 3 == 0 ? null : i * 2, tree.get(i));
+    }
+    Assert.assertNull(tree.get(1000));
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.BPlusRecord;
+import lsmTree.BPlusLSMNodeFactory;
+import lsmTree.CompactionStrategy;
+import lsmTree.LSMNode;
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.LeveledCompactionStrategy;
+import lsmTree.SizeTieredCompactionStrategy;
+import lsmTree.WholeLevelCompactionStrategy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class CompactionStrategyTest {
+
+  @Test
+  public void sameContentsUnderEveryStrategy() throws IOException {
+    randomWrites(new WholeLevelCompactionStrategy<>());
+    randomWrites(new WholeLevelCompactionStrategy<>(false));
+    randomWrites(new LeveledCompactionStrategy<>(8));
+    randomWrites(new SizeTieredCompactionStrategy<>(2));
+    randomWrites(new SizeTieredCompactionStrategy<>(4));
+  }
+
+  @Test
+  public void sizeTieredWritesLess() throws IOException {
+    long wholeLevel = randomWrites(new WholeLevelCompactionStrategy<>());
+    long sizeTiered = randomWrites(new SizeTieredCompactionStrategy<>(4));
+    Assert.assertTrue(sizeTiered + " >= " + wholeLevel, sizeTiered < wholeLevel);
+  }
+
+  @Test
+  public void multiLevelMergeWritesLess() throws IOException {
+    long cascading = sequentialWrites(new WholeLevelCompactionStrategy<>(false));
+    long multiLevel = sequentialWrites(new WholeLevelCompactionStrategy<>(true));
+    Assert.assertTrue(multiLevel + " >= " + cascading, multiLevel < cascading);
+  }
+
+  /** @return records written by compactions */
+  private long sequentialWrites(CompactionStrategy<Integer, String> strategy) throws IOException {
+    CountingFactory factory = new CountingFactory();
+    try (LSMTree<Integer, String> tree =
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, String>(6, 2, 3)
+                .setLevelFactory(factory)
+                .setCompactionStrategy(strategy))) {
+      for (int i = 0; i < 3000; i++) {
+        tree.insert(i, "v" + i);
+      }
+      for (int i = 0; i < 3000; i++) {
+        Assert.assertEquals("v" + i, tree.get(i));
+      }
+    }
+    return factory.written;
+  }
+
+  @Test
+  public void sizeTieredHonorsByteLimit() {
+    Assert.assertEquals(2, sizeTieredLevels(0));
+    Assert.assertTrue(sizeTieredLevels(2048) > 2);
+  }
+
+  private int sizeTieredLevels(long L0Bytes) {
+    LSMTree<Integer, String> tree =
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, String>(6, 2, 3)
+                .setL0Bytes(L0Bytes)
+                .setCompactionStrategy(new SizeTieredCompactionStrategy<>(1000)));
+    for (int i = 0; i < 3000; i++) {
+      tree.insert(i, "v" + i);
+    }
+    for (int i = 0; i < 3000; i++) {
+      Assert.assertEquals("v" + i, tree.get(i));
+    }
+    return tree.getMaxLevel();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void sizeTieredNeedsTwoRuns() {
+    new SizeTieredCompactionStrategy<Integer, String>(1);
+  }
+
+  /** @return records written by compactions */
+  private long randomWrites(CompactionStrategy<Integer, String> strategy) throws IOException {
+    CountingFactory factory = new CountingFactory();
+    TreeMap<Integer, String> expected = new TreeMap<>();
+    Random random = new Random(15);
+    try (LSMTree<Integer, String> tree =
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, String>(6, 2, 3)
+                .setLevelFactory(factory)
+                .setCompactionStrategy(strategy))) {
+      for (int i = 0; i < 5000; i++) {
+        int key = random.nextInt(2000);
+        if (random.nextInt(5) == 0) {
+          tree.remove(key);
+          expected.remove(key);
+        } else {
+          tree.insert(key, "v" + i);
+          expected.put(key, "v" + i);
+        }
+      }
+      for (int key = 0; key < 2000; key++) {
+        Assert.assertEquals(expected.get(key), tree.get(key));
+      }
+      Iterator<BPlusRecord<Integer, String>> iterator = tree.scan(500, 1500);
+      for (Map.Entry<Integer, String> entry : expected.subMap(500, 1500).entrySet()) {
+        BPlusRecord<Integer, String> record = iterator.next();
+        Assert.assertEquals(entry.getKey(), record.getKey());
+        Assert.assertEquals(entry.getValue(), record.getValue());
+      }
+      Assert.assertFalse(iterator.hasNext());
+    }
+    return factory.written;
+  }
+
+  private static class CountingFactory extends BPlusLSMNodeFactory<Integer, String> {
+    long written = 0;
+
+    CountingFactory() {
+      super(3);
+    }
+
+    @Override
+    public LSMNode<Integer, String> create(
+        int level, int maxSize, Iterator<BPlusRecord<Integer, String>> records) {
+      LSMNode<Integer, String> node = super.create(level, maxSize, records);
+      written += node.getSize();
+      return node;
+    }
+
+    @Override
+    public LSMNode<Integer, String> flush(
+        LSMNode<Integer, String> memTable, int level, int maxSize) {
+      return create(level, maxSize, memTable.iterator());
+    }
+  }
+}
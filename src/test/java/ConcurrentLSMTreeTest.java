@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.BPlusRecord;
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.ScanIterator;
+import lsmTree.SkipListLSMNode;
+import lsmTree.codec.Serializers;
+import lsmTree.sstable.SSTableLSMNodeFactory;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentLSMTreeTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private void readWhileWriting(LSMTree<Integer, Integer> tree) throws Exception {
+    int writers = 4;
+    int perWriter = 3000;
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicInteger errors = new AtomicInteger();
+    List<Thread> threads = new ArrayList<>();
+    for (int w = 0; w < writers; w++) {
+      int base = w * perWriter;
+      threads.add(
+          new Thread(
+              () -> {
+                for (int i = base; i < base + perWriter; i++) {
+                  tree.insert(i, i);
+                }
+              }));
+    }
+    for (int r = 0; r < 4; r++) {
+      threads.add(
+          new Thread(
+              () -> {
+                try {
+                  while (!done.get()) {
+                    // keys below 0 are never written
+                    if (tree.get(-1) != null) {
+                      errors.incrementAndGet();
+                    }
+                    for (int i = 0; i < writers * perWriter; i += 97) {
+                      Integer value = tree.get(i);
+                      if (value != null && value != i) {
+                        errors.incrementAndGet();
+                      }
+                    }
+                  }
+                } catch (RuntimeException e) {
+                  e.printStackTrace();
+                  errors.incrementAndGet();
+                }
+              }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (int w = 0; w < writers; w++) {
+      threads.get(w).join();
+    }
+    done.set(true);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertEquals(0, errors.get());
+    tree.awaitCompaction();
+    for (int i = 0; i < writers * perWriter; i++) {
+      Assert.assertEquals(i, (int) tree.get(i));
+    }
+    tree.close();
+  }
+
+  @Test
+  public void heapLevels() throws Exception {
+    readWhileWriting(
+        new LSMTree<>(new LSMTreeConfig<Integer, Integer>(64, 4, 8).setBackgroundCompaction(true)));
+  }
+
+  @Test
+  public void skipListMemTable() throws Exception {
+    readWhileWriting(
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, Integer>(64, 4, 8)
+                .setMemTableFactory(SkipListLSMNode::new)
+                .setBackgroundCompaction(true)));
+  }
+
+  @Test
+  public void skipListMemTableInlineCompaction() throws Exception {
+    readWhileWriting(
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, Integer>(64, 4, 8)
+                .setMemTableFactory(SkipListLSMNode::new)));
+  }
+
+  @Test
+  public void skipListTombstones() {
+    LSMTree<Integer, Integer> tree =
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, Integer>(6, 2, 3).setMemTableFactory(SkipListLSMNode::new));
+    for (int i = 0; i < 100; i++) {
+      tree.insert(i, i * 2);
+    }
+    for (int i = 0; i < 100; i += 2) {
+      tree.remove(i);
+    }
+    tree.insert(0, 1);
+    for (int i = 1; i < 100; i++) {
+      Assert.assertEquals(i % 2 == 0 ? null : i * 2, tree.get(i));
+    }
+    Assert.assertEquals(1, (int) tree.get(0));
+  }
+
+  @Test
+  public void fileLevels() throws Exception {
+    File directory = folder.newFolder();
+    readWhileWriting(
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, Integer>(64, 4, 8)
+                .setBackgroundCompaction(true)
+                .setLevelFactory(
+                    new SSTableLSMNodeFactory<>(
+                        directory, Serializers.INTEGER, Serializers.INTEGER))));
+    // 关闭后保留各层文件，重新打开时按清单恢复
+    try (LSMTree<Integer, Integer> tree =
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, Integer>(64, 4, 8)
+                .setLevelFactory(
+                    new SSTableLSMNodeFactory<>(
+                        directory, Serializers.INTEGER, Serializers.INTEGER)))) {
+      int count = 0;
+      try (ScanIterator<Integer, Integer> iterator = tree.scan()) {
+        while (iterator.hasNext()) {
+          BPlusRecord<Integer, Integer> record = iterator.next();
+          Assert.assertEquals(record.getKey(), record.getValue());
+          count++;
+        }
+      }
+      Assert.assertTrue(count >= 4 * 3000 - 64);
+    }
+  }
+}
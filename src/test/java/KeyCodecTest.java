@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.BPlusRecord;
+import lsmTree.LSMNode;
+import lsmTree.codec.ByteKey;
+import lsmTree.codec.KeyCodec;
+import lsmTree.codec.KeyCodecs;
+import lsmTree.codec.Serializers;
+import lsmTree.offheap.OffHeapLSMNode;
+import lsmTree.sstable.MappedSSTableLSMNode;
+import lsmTree.sstable.SSTableLSMNode;
+import lsmTree.sstable.SSTableWriter;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+public class KeyCodecTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final Random random = new Random(13);
+
+  @Test
+  public void integerOrder() {
+    checkOrder(KeyCodecs.INTEGER, () -> random.nextInt(), Integer.MIN_VALUE, -1, 0, 1);
+  }
+
+  @Test
+  public void longOrder() {
+    checkOrder(KeyCodecs.LONG, () -> random.nextLong(), Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L);
+  }
+
+  @Test
+  public void stringOrder() {
+    // 代理对与 U+E000 以上字符的顺序在 UTF-8 和 UTF-16 中不同
+    checkOrder(
+        KeyCodecs.STRING,
+        () -> {
+          char[] chars = new char[random.nextInt(5)];
+          for (int i = 0; i < chars.length; i++) {
+            chars[i] = "a\u0000ÿ😀￿".charAt(random.nextInt(7));
+          }
+          return new String(chars);
+        },
+        "",
+        "a",
+        "ab",
+        "😀",
+        "￿");
+  }
+
+  @Test
+  public void bytesOrder() {
+    checkOrder(
+        KeyCodecs.BYTES,
+        () -> {
+          byte[] bytes = new byte[random.nextInt(4)];
+          random.nextBytes(bytes);
+          return new ByteKey(bytes);
+        },
+        new ByteKey(new byte[0]),
+        new ByteKey(new byte[] {(byte) 0xff}),
+        new ByteKey(new byte[] {0, 0}));
+  }
+
+  @SafeVarargs
+  private final <K extends Comparable<K>> void checkOrder(
+      KeyCodec<K> codec, Supplier<K> generator, K... fixed) {
+    List<K> keys = new ArrayList<>();
+    for (K key : fixed) {
+      keys.add(key);
+    }
+    for (int i = 0; i < 500; i++) {
+      keys.add(generator.get());
+    }
+    for (K a : keys) {
+      ByteBuffer buffer = ByteBuffer.allocate(codec.serializedSize(a));
+      codec.write(a, buffer);
+      Assert.assertFalse(buffer.hasRemaining());
+      buffer.flip();
+      Assert.assertEquals(a, codec.read(buffer));
+      for (int i = 0; i < 20; i++) {
+        K b = keys.get(random.nextInt(keys.size()));
+        int expected = Integer.signum(a.compareTo(b));
+        Assert.assertEquals(
+            expected, Integer.signum(KeyCodec.compare(codec.encode(a), codec.encode(b))));
+        buffer.rewind();
+        Assert.assertEquals(
+            expected, Integer.signum(codec.compareEncoded(buffer, codec.encode(b))));
+        Assert.assertEquals(buffer.limit(), buffer.position());
+      }
+    }
+  }
+
+  @Test
+  public void nodesCompareEncodedKeys() throws IOException {
+    List<BPlusRecord<String, String>> records = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      String key = String.format("key-%05d", i * 2);
+      records.add(
+          i % 5 == 0
+              ? new BPlusRecord<String, String>(key, true)
+              : new BPlusRecord<String, String>(key, "v" + i));
+    }
+    File file = folder.newFile();
+    new SSTableWriter<>(KeyCodecs.STRING, Serializers.STRING, 128).write(file, records.iterator());
+    OffHeapLSMNode<String, String> offHeap =
+        new OffHeapLSMNode<>(KeyCodecs.STRING, Serializers.STRING, 1000);
+    for (BPlusRecord<String, String> record : records) {
+      offHeap.insert(record);
+    }
+    List<LSMNode<String, String>> nodes = new ArrayList<>();
+    nodes.add(new SSTableLSMNode<>(file, KeyCodecs.STRING, Serializers.STRING, 1000));
+    nodes.add(new MappedSSTableLSMNode<>(file, KeyCodecs.STRING, Serializers.STRING, 1000));
+    nodes.add(offHeap);
+    for (LSMNode<String, String> node : nodes) {
+      Assert.assertNull(node.get("a"));
+      Assert.assertNull(node.get("z"));
+      for (int i = 0; i < 500; i++) {
+        BPlusRecord<String, String> record = node.get(String.format("key-%05d", i * 2));
+        Assert.assertEquals(records.get(i).toString(), record.toString());
+        Assert.assertNull(node.get(String.format("key-%05d", i * 2 + 1)));
+      }
+      Assert.assertEquals(
+          records.get(250).toString(), node.iterator("key-00499").next().toString());
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.SkipListLSMNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class LevelSizingTest {
+
+  @Test
+  public void updatesDoNotTriggerMerges() throws IOException {
+    updatesDoNotTriggerMerges(new LSMTreeConfig<>(6, 2, 3));
+    updatesDoNotTriggerMerges(
+        new LSMTreeConfig<Integer, Integer>(6, 2, 3).setMemTableFactory(SkipListLSMNode::new));
+  }
+
+  private void updatesDoNotTriggerMerges(LSMTreeConfig<Integer, Integer> config)
+      throws IOException {
+    try (LSMTree<Integer, Integer> tree = new LSMTree<>(config)) {
+      for (int i = 0; i < 10000; i++) {
+        tree.insert(i % 3, i);
+      }
+      tree.remove(1);
+      Assert.assertEquals(1, tree.getMaxLevel());
+      Assert.assertEquals(3, tree.getSize(0));
+      Assert.assertEquals(1, tree.getTombstoneCount(0));
+      Assert.assertEquals(9999, (int) tree.get(0));
+      Assert.assertNull(tree.get(1));
+    }
+  }
+
+  @Test
+  public void mergeOnBytes() throws IOException {
+    char[] chars = new char[100];
+    Arrays.fill(chars, 'x');
+    String value = new String(chars);
+    try (LSMTree<Integer, String> tree =
+        new LSMTree<>(new LSMTreeConfig<Integer, String>(1000, 2, 4).setL0Bytes(4096))) {
+      for (int i = 0; i < 200; i++) {
+        tree.insert(i, value + i);
+        Assert.assertTrue(tree.getSizeInBytes(0) < 4096);
+      }
+      Assert.assertTrue(tree.getMaxLevel() > 1);
+      for (int level = 1; level < tree.getMaxLevel(); level++) {
+        Assert.assertTrue(tree.getSize(level) < 1000 << level);
+      }
+      for (int i = 0; i < 200; i++) {
+        Assert.assertEquals(value + i, tree.get(i));
+      }
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.BPlusRecord;
+import lsmTree.BPlusLSMNodeFactory;
+import lsmTree.LSMNode;
+import lsmTree.LSMNodeFactory;
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.LeveledCompactionStrategy;
+import lsmTree.codec.Serializers;
+import lsmTree.sstable.SSTableLSMNodeFactory;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class LeveledCompactionTest {
+  private static final int RUN_SIZE = 8;
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void bPlusLevels() throws IOException {
+    randomWrites(new BPlusLSMNodeFactory<>(3));
+  }
+
+  /** ascending keys never overlap the level below, so a level 0 larger than a run must be split */
+  @Test
+  public void level0LargerThanRun() throws IOException {
+    File directory = folder.newFolder();
+    for (LSMNodeFactory<Integer, String> levels :
+        Arrays.<LSMNodeFactory<Integer, String>>asList(
+            new BPlusLSMNodeFactory<>(3),
+            new SSTableLSMNodeFactory<>(directory, Serializers.INTEGER, Serializers.STRING, 64))) {
+      try (LSMTree<Integer, String> tree =
+          new LSMTree<>(
+              new LSMTreeConfig<Integer, String>(RUN_SIZE * 3, 2, 3)
+                  .setLevelFactory(new RunSizeChecker(levels))
+                  .setCompactionStrategy(new LeveledCompactionStrategy<>(RUN_SIZE)))) {
+        for (int i = 0; i < 1000; i++) {
+          tree.insert(i, "v" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+          Assert.assertEquals("v" + i, tree.get(i));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void ssTableLevels() throws IOException {
+    File directory = folder.newFolder();
+    randomWrites(
+        new SSTableLSMNodeFactory<>(directory, Serializers.INTEGER, Serializers.STRING, 64));
+    Assert.assertEquals(0, directory.list().length);
+  }
+
+  private void randomWrites(LSMNodeFactory<Integer, String> levels) throws IOException {
+    RunSizeChecker factory = new RunSizeChecker(levels);
+    TreeMap<Integer, String> expected = new TreeMap<>();
+    Random random = new Random(14);
+    try (LSMTree<Integer, String> tree =
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, String>(6, 2, 3)
+                .setLevelFactory(factory)
+                .setCompactionStrategy(new LeveledCompactionStrategy<>(RUN_SIZE)))) {
+      for (int i = 0; i < 5000; i++) {
+        int key = random.nextInt(1000);
+        if (random.nextInt(4) == 0) {
+          tree.remove(key);
+          expected.remove(key);
+        } else {
+          tree.insert(key, "v" + i);
+          expected.put(key, "v" + i);
+        }
+      }
+      Assert.assertTrue(tree.getMaxLevel() > 3);
+      for (int key = 0; key < 1000; key++) {
+        Assert.assertEquals(expected.get(key), tree.get(key));
+      }
+      Iterator<BPlusRecord<Integer, String>> iterator = tree.scan(250, 750);
+      for (Map.Entry<Integer, String> entry : expected.subMap(250, 750).entrySet()) {
+        BPlusRecord<Integer, String> record = iterator.next();
+        Assert.assertEquals(entry.getKey(), record.getKey());
+        Assert.assertEquals(entry.getValue(), record.getValue());
+      }
+      Assert.assertFalse(iterator.hasNext());
+    }
+  }
+
+  /** every node built below level 0 must hold at most one run */
+  private static class RunSizeChecker implements LSMNodeFactory<Integer, String> {
+    private final LSMNodeFactory<Integer, String> factory;
+
+    RunSizeChecker(LSMNodeFactory<Integer, String> factory) {
+      this.factory = factory;
+    }
+
+    @Override
+    public LSMNode<Integer, String> create(
+        int level, int maxSize, Iterator<BPlusRecord<Integer, String>> records) {
+      Assert.assertEquals(RUN_SIZE, maxSize);
+      LSMNode<Integer, String> node = factory.create(level, maxSize, records);
+      Assert.assertTrue(node.getSize() <= RUN_SIZE);
+      return node;
+    }
+
+    @Override
+    public LSMNode<Integer, String> flush(
+        LSMNode<Integer, String> memTable, int level, int maxSize) {
+      LSMNode<Integer, String> node = factory.flush(memTable, level, maxSize);
+      Assert.assertTrue(node.getSize() <= RUN_SIZE);
+      return node;
+    }
+
+    @Override
+    public boolean reusesMemTable() {
+      return factory.reusesMemTable();
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.LongBPlusNode;
+import bplustree.LongBPlusTree;
+import bplustree.LongBPlusTreeBuilder;
+import bplustree.LongBPlusTreeCursor;
+import lsmTree.LongLSMTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class LongLSMTreeTest {
+
+  @Test
+  public void bPlusTreeMatchesTreeMap() {
+    Random random = new Random(17);
+    for (int order = 3; order <= 8; order++) {
+      LongBPlusTree tree = new LongBPlusTree(order);
+      TreeMap<Long, Long> expected = new TreeMap<>();
+      for (int i = 0; i < 2000; i++) {
+        long key = random.nextInt(1000) - 500;
+        if (random.nextInt(5) == 0) {
+          tree.putTombstone(key);
+          expected.put(key, null);
+        } else {
+          tree.put(key, i);
+          expected.put(key, (long) i);
+        }
+      }
+      Assert.assertEquals(expected.size(), tree.size());
+      for (long key = -501; key <= 500; key++) {
+        LongBPlusNode leaf = tree.findLeaf(key);
+        int index = leaf.search(key);
+        Assert.assertEquals(expected.containsKey(key), index >= 0);
+        if (index >= 0) {
+          Long value = expected.get(key);
+          Assert.assertEquals(value == null, leaf.isDeleted(index));
+          if (value != null) {
+            Assert.assertEquals((long) value, leaf.value(index));
+          }
+        }
+      }
+      assertCursor(expected, tree.cursor());
+    }
+  }
+
+  @Test
+  public void builderMatchesInserts() {
+    for (int order = 3; order <= 6; order++) {
+      for (int size = 0; size < 100; size++) {
+        LongBPlusTreeBuilder builder = new LongBPlusTreeBuilder(order);
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        for (long key = 0; key < size; key++) {
+          builder.add(key * 2, key, key % 3 == 0);
+          expected.put(key * 2, key % 3 == 0 ? null : key);
+        }
+        LongBPlusTree tree = builder.build();
+        Assert.assertEquals(size, tree.size());
+        for (long key = -1; key <= size * 2; key++) {
+          Assert.assertEquals(expected.containsKey(key), tree.findLeaf(key).search(key) >= 0);
+        }
+        assertCursor(expected, tree.cursor());
+        // a built tree still accepts inserts
+        for (long key = 0; key < size; key++) {
+          tree.put(key * 2 + 1, -key);
+          expected.put(key * 2 + 1, -key);
+        }
+        assertCursor(expected, tree.cursor());
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void builderRejectsUnsortedKeys() {
+    new LongBPlusTreeBuilder(3).add(2, 0, false).add(1, 0, false);
+  }
+
+  @Test
+  public void lsmTreeMatchesTreeMap() {
+    Random random = new Random(17);
+    LongLSMTree tree = new LongLSMTree(6, 2, 3);
+    TreeMap<Long, Long> expected = new TreeMap<>();
+    for (int i = 0; i < 20000; i++) {
+      long key = random.nextInt(3000);
+      if (random.nextInt(4) == 0) {
+        tree.remove(key);
+        expected.remove(key);
+      } else {
+        tree.put(key, i);
+        expected.put(key, (long) i);
+      }
+    }
+    Assert.assertTrue(tree.getMaxLevel() > 3);
+    for (long key = 0; key < 3000; key++) {
+      Long value = expected.get(key);
+      Assert.assertEquals(value != null, tree.containsKey(key));
+      Assert.assertEquals(value == null ? -1 : value, tree.get(key, -1));
+    }
+    Assert.assertEquals(0, tree.getTombstoneCount(tree.getMaxLevel() - 1));
+  }
+
+  private static void assertCursor(TreeMap<Long, Long> expected, LongBPlusTreeCursor cursor) {
+    for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+      Assert.assertTrue(cursor.next());
+      Assert.assertEquals((long) entry.getKey(), cursor.key());
+      Assert.assertEquals(entry.getValue() == null, cursor.isDeleted());
+      if (entry.getValue() != null) {
+        Assert.assertEquals((long) entry.getValue(), cursor.value());
+      }
+    }
+    Assert.assertFalse(cursor.next());
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.BPlusRecord;
+import bplustree.BPlusTree;
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.codec.Serializers;
+import lsmTree.sstable.SSTableLSMNodeFactory;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class MultiGetTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void bplusTreeGetAll() {
+    Random random = new Random(21);
+    for (int order = 3; order <= 6; order++) {
+      BPlusTree<Integer, Integer> tree = new BPlusTree<>(order);
+      for (int i = 0; i < 500; i++) {
+        tree.insertOrUpdate(random.nextInt(1000), i);
+      }
+      for (int i = 0; i < 200; i++) {
+        tree.remove(random.nextInt(1000));
+      }
+      List<Integer> keys = new ArrayList<>();
+      for (int key = -1; key <= 1000; key += 1 + random.nextInt(3)) {
+        keys.add(key);
+      }
+      List<BPlusRecord<Integer, Integer>> records = tree.getAll(keys);
+      for (int i = 0; i < keys.size(); i++) {
+        Assert.assertSame(tree.get(keys.get(i)), records.get(i));
+      }
+    }
+    Assert.assertNull(new BPlusTree<Integer, Integer>(3).getAll(Arrays.asList(1)).get(0));
+  }
+
+  @Test
+  public void matchesGet() throws IOException {
+    check(new LSMTreeConfig<>(16, 3, 4));
+    check(new LSMTreeConfig<Integer, String>(16, 3, 4).setRowCacheEntries(200));
+    check(
+        new LSMTreeConfig<Integer, String>(16, 3, 4)
+            .setBloomFilterBitsPerKey(10)
+            .setLevelFactory(
+                new SSTableLSMNodeFactory<>(
+                    folder.newFolder(), Serializers.INTEGER, Serializers.STRING, 64)));
+  }
+
+  private void check(LSMTreeConfig<Integer, String> config) throws IOException {
+    Random random = new Random(4);
+    try (LSMTree<Integer, String> tree = new LSMTree<>(config)) {
+      for (int i = 0; i < 3000; i++) {
+        int key = random.nextInt(2000);
+        if (random.nextInt(4) == 0) {
+          tree.remove(key);
+        } else {
+          tree.insert(key, "v" + i);
+        }
+      }
+      for (int round = 0; round < 20; round++) {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+          keys.add(random.nextInt(2200) - 100);
+        }
+        Map<Integer, String> expected = new HashMap<>();
+        for (int key : keys) {
+          String value = tree.get(key);
+          if (value != null) {
+            expected.put(key, value);
+          }
+        }
+        Assert.assertEquals(expected, tree.multiGet(keys));
+      }
+    }
+  }
+}
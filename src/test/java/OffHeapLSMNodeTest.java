@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.BPlusRecord;
+import lsmTree.CompactionStrategy;
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.LeveledCompactionStrategy;
+import lsmTree.SizeTieredCompactionStrategy;
+import lsmTree.Snapshot;
+import lsmTree.WholeLevelCompactionStrategy;
+import lsmTree.codec.Serializers;
+import lsmTree.offheap.OffHeapChunkPool;
+import lsmTree.offheap.OffHeapLSMNode;
+import lsmTree.sstable.SSTableLSMNodeFactory;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class OffHeapLSMNodeTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void matchesTreeMap() {
+    // 块很小，覆盖跨块分配以及超过块大小的值
+    OffHeapLSMNode<Integer, String> node =
+        new OffHeapLSMNode<>(
+            Serializers.INTEGER, Serializers.STRING, 10000, new OffHeapChunkPool(256, 0));
+    // null 表示墓碑
+    TreeMap<Integer, String> expected = new TreeMap<>();
+    Random random = new Random(9);
+    StringBuilder large = new StringBuilder();
+    for (int i = 0; i < 300; i++) {
+      large.append('x');
+    }
+    for (int i = 0; i < 5000; i++) {
+      int key = random.nextInt(2000);
+      if (random.nextInt(5) == 0) {
+        node.insert(new BPlusRecord<Integer, String>(key, true));
+        expected.put(key, null);
+      } else {
+        String value = i % 100 == 0 ? large.toString() + i : "v" + i;
+        node.insert(new BPlusRecord<>(key, value));
+        expected.put(key, value);
+      }
+    }
+    Assert.assertEquals(expected.size(), node.getSize());
+    Assert.assertEquals(
+        expected.values().stream().filter(v -> v == null).count(), node.getTombstoneCount());
+    Assert.assertTrue(node.getSizeInBytes() > 0);
+    for (int key = -1; key <= 2000; key++) {
+      BPlusRecord<Integer, String> record = node.get(key);
+      if (!expected.containsKey(key)) {
+        Assert.assertNull(record);
+      } else if (expected.get(key) == null) {
+        Assert.assertTrue(record.isDeleted());
+      } else {
+        Assert.assertEquals(expected.get(key), record.getValue());
+      }
+    }
+    Assert.assertEquals(expected.lastKey(), node.lastKey());
+    assertRecords(expected, node.iterator());
+    for (int from = -1; from <= 2001; from += 17) {
+      assertRecords(expected.tailMap(from, true), node.iterator(from));
+    }
+    node.delete();
+    Assert.assertEquals(0, node.getSizeInBytes());
+  }
+
+  /** 被释放的层的内存块由之后创建的层复用，不依赖 GC 回收 direct ByteBuffer */
+  @Test
+  public void chunksAreReused() {
+    OffHeapChunkPool pool = new OffHeapChunkPool(256, 4);
+    OffHeapLSMNode<Integer, String> first =
+        new OffHeapLSMNode<>(Serializers.INTEGER, Serializers.STRING, 1000, pool);
+    for (int i = 0; i < 200; i++) {
+      first.insert(new BPlusRecord<>(i, "v" + i));
+    }
+    Assert.assertEquals(0, pool.getPooledChunks());
+    first.delete();
+    Assert.assertEquals(4, pool.getPooledChunks());
+    OffHeapLSMNode<Integer, String> second =
+        new OffHeapLSMNode<>(Serializers.INTEGER, Serializers.STRING, 1000, pool);
+    for (int i = 0; i < 20; i++) {
+      second.insert(new BPlusRecord<>(i, "w" + i));
+    }
+    Assert.assertTrue(pool.getPooledChunks() < 4);
+    for (int i = 0; i < 20; i++) {
+      Assert.assertEquals("w" + i, second.get(i).getValue());
+    }
+    Assert.assertNull(second.get(20));
+  }
+
+  @Test
+  public void sizeInBytesCountsWrittenBytes() {
+    OffHeapLSMNode<Integer, String> node =
+        new OffHeapLSMNode<>(Serializers.INTEGER, Serializers.STRING, 100);
+    node.insert(new BPlusRecord<>(1, "a"));
+    long one = node.getSizeInBytes();
+    Assert.assertTrue(one > 0 && one < 100);
+    node.insert(new BPlusRecord<>(1, "b"));
+    Assert.assertTrue(node.getSizeInBytes() > one);
+    Assert.assertTrue(node.getSizeInBytes() < OffHeapLSMNode.DEFAULT_CHUNK_SIZE);
+  }
+
+  @Test
+  public void lsmTreeWithOffHeapMemTable() throws IOException {
+    lsmTreeWithOffHeapMemTable(new LSMTreeConfig<>(16, 3, 4));
+    File directory = folder.newFolder();
+    lsmTreeWithOffHeapMemTable(
+        new LSMTreeConfig<Integer, String>(16, 3, 4)
+            .setLevelFactory(
+                new SSTableLSMNodeFactory<>(directory, Serializers.INTEGER, Serializers.STRING)));
+  }
+
+  private void lsmTreeWithOffHeapMemTable(LSMTreeConfig<Integer, String> config)
+      throws IOException {
+    LSMTree<Integer, String> tree =
+        new LSMTree<>(
+            config.setMemTableFactory(
+                maxSize -> new OffHeapLSMNode<>(Serializers.INTEGER, Serializers.STRING, maxSize)));
+    for (int i = 0; i < 1000; i++) {
+      tree.insert((i * 37) % 1000, "v" + i);
+    }
+    for (int i = 0; i < 1000; i += 4) {
+      tree.remove(i);
+    }
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertEquals(i % 4 == 0 ? null : "v" + ((i * 973) % 1000), tree.get(i));
+    }
+    tree.close();
+  }
+
+  /** 快照引用的版本中仍有被合并走的 level 0，合并不能提前释放它的堆外内存 */
+  @Test
+  public void snapshotOutlivesFlushedMemTable() throws IOException {
+    snapshotOutlivesFlushedMemTable(new WholeLevelCompactionStrategy<>());
+    snapshotOutlivesFlushedMemTable(new SizeTieredCompactionStrategy<>(3));
+    snapshotOutlivesFlushedMemTable(new LeveledCompactionStrategy<>(8));
+  }
+
+  private void snapshotOutlivesFlushedMemTable(CompactionStrategy<Integer, String> strategy)
+      throws IOException {
+    File directory = folder.newFolder();
+    try (LSMTree<Integer, String> tree =
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, String>(16, 3, 4)
+                .setCompactionStrategy(strategy)
+                .setLevelFactory(
+                    new SSTableLSMNodeFactory<>(directory, Serializers.INTEGER, Serializers.STRING))
+                .setMemTableFactory(
+                    maxSize ->
+                        new OffHeapLSMNode<>(Serializers.INTEGER, Serializers.STRING, maxSize)))) {
+      for (int i = 0; i < 10; i++) {
+        tree.insert(i, "a" + i);
+      }
+      Snapshot<Integer, String> snapshot = tree.snapshot();
+      for (int i = 0; i < 500; i++) {
+        tree.insert(i, "b" + i);
+      }
+      for (int i = 0; i < 20; i++) {
+        Assert.assertEquals(i < 10 ? "a" + i : null, snapshot.get(i));
+        Assert.assertEquals("b" + i, tree.get(i));
+      }
+      snapshot.close();
+    }
+  }
+
+  private static void assertRecords(
+      Map<Integer, String> expected, Iterator<BPlusRecord<Integer, String>> iterator) {
+    for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+      BPlusRecord<Integer, String> record = iterator.next();
+      Assert.assertEquals(entry.getKey(), record.getKey());
+      Assert.assertEquals(entry.getValue() == null, record.isDeleted());
+      if (entry.getValue() != null) {
+        Assert.assertEquals(entry.getValue(), record.getValue());
+      }
+    }
+    Assert.assertFalse(iterator.hasNext());
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.RowCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class RowCacheTest {
+
+  @Test
+  public void invalidatedByWrites() throws IOException {
+    LSMTree<Integer, String> tree =
+        new LSMTree<>(new LSMTreeConfig<Integer, String>(8, 2, 4).setRowCacheEntries(1000));
+    RowCache<Integer, String> cache = tree.getRowCache();
+    for (int i = 0; i < 100; i++) {
+      tree.insert(i, "v" + i);
+    }
+    Assert.assertEquals("v1", tree.get(1));
+    Assert.assertEquals("v1", tree.get(1));
+    Assert.assertEquals(1, cache.getHitCount());
+    tree.insert(1, "w1");
+    Assert.assertEquals("w1", tree.get(1));
+    tree.remove(1);
+    Assert.assertNull(tree.get(1));
+    // 不存在的键也会被缓存
+    Assert.assertNull(tree.get(1000));
+    long hits = cache.getHitCount();
+    Assert.assertNull(tree.get(1000));
+    Assert.assertEquals(hits + 1, cache.getHitCount());
+    tree.insert(1000, "v1000");
+    Assert.assertEquals("v1000", tree.get(1000));
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals(i == 1 ? null : "v" + i, tree.get(i));
+    }
+    tree.close();
+  }
+
+  @Test
+  public void frequentKeysSurviveScans() throws IOException {
+    LSMTree<Integer, Integer> tree =
+        new LSMTree<>(new LSMTreeConfig<Integer, Integer>(64, 4, 8).setRowCacheEntries(100));
+    for (int i = 0; i < 20000; i++) {
+      tree.insert(i, i);
+    }
+    for (int round = 0; round < 20; round++) {
+      for (int i = 0; i < 50; i++) {
+        tree.get(i);
+      }
+    }
+    // 只访问一次的键不应挤掉热点键
+    for (int i = 1000; i < 1500; i++) {
+      tree.get(i);
+    }
+    RowCache<Integer, Integer> cache = tree.getRowCache();
+    Assert.assertTrue(cache.getSize() <= 100);
+    long hits = cache.getHitCount();
+    for (int i = 0; i < 50; i++) {
+      Assert.assertEquals(i, (int) tree.get(i));
+    }
+    Assert.assertTrue(cache.getHitCount() - hits >= 45);
+    tree.close();
+  }
+
+  @Test
+  public void boundedByBytes() throws IOException {
+    LSMTree<Integer, String> tree =
+        new LSMTree<>(new LSMTreeConfig<Integer, String>(64, 4, 8).setRowCacheBytes(10000));
+    for (int i = 0; i < 5000; i++) {
+      tree.insert(i, "value-" + i);
+    }
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 5000; i++) {
+        Assert.assertEquals("value-" + i, tree.get(i));
+      }
+    }
+    RowCache<Integer, String> cache = tree.getRowCache();
+    Assert.assertTrue(cache.getSizeInBytes() <= 10000);
+    Assert.assertTrue(cache.getSize() > 0);
+    Assert.assertTrue(cache.getEvictionCount() > 0);
+    tree.close();
+  }
+
+  @Test
+  public void singleEntryCache() throws IOException {
+    LSMTree<Integer, Integer> tree =
+        new LSMTree<>(new LSMTreeConfig<Integer, Integer>(8, 2, 4).setRowCacheEntries(1));
+    for (int i = 0; i < 100; i++) {
+      tree.insert(i, i);
+    }
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 100; i++) {
+        Assert.assertEquals(i, (int) tree.get(i));
+      }
+    }
+    Assert.assertEquals(1, tree.getRowCache().getSize());
+    tree.close();
+  }
+
+  @Test
+  public void concurrentReadsDoNotCacheStaleValues() throws Exception {
+    LSMTree<Integer, Integer> tree =
+        new LSMTree<>(new LSMTreeConfig<Integer, Integer>(64, 4, 8).setRowCacheEntries(1000));
+    AtomicBoolean done = new AtomicBoolean();
+    List<Thread> readers = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      Thread reader =
+          new Thread(
+              () -> {
+                while (!done.get()) {
+                  for (int key = 0; key < 10; key++) {
+                    tree.get(key);
+                  }
+                }
+              });
+      reader.start();
+      readers.add(reader);
+    }
+    for (int i = 0; i < 20000; i++) {
+      tree.insert(i % 10, i);
+    }
+    done.set(true);
+    for (Thread reader : readers) {
+      reader.join();
+    }
+    for (int key = 0; key < 10; key++) {
+      Assert.assertEquals(19990 + key, (int) tree.get(key));
+    }
+    tree.close();
+  }
+}
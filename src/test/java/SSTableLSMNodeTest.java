@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.BPlusRecord;
+import lsmTree.LSMNode;
+import lsmTree.LSMNodeFactory;
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.ScanIterator;
+import lsmTree.codec.Serializers;
+import lsmTree.sstable.MappedSSTableLSMNode;
+import lsmTree.sstable.MappedSSTableLSMNodeFactory;
+import lsmTree.sstable.SSTableLSMNode;
+import lsmTree.sstable.SSTableLSMNodeFactory;
+import lsmTree.sstable.SSTableWriter;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class SSTableLSMNodeTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private LSMNode<Integer, String> open(File file, boolean mapped, int maxSize) throws IOException {
+    return mapped
+        ? new MappedSSTableLSMNode<>(file, Serializers.INTEGER, Serializers.STRING, maxSize)
+        : new SSTableLSMNode<>(file, Serializers.INTEGER, Serializers.STRING, maxSize);
+  }
+
+  @Test
+  public void writeAndRead() throws IOException {
+    writeAndRead(false);
+    writeAndRead(true);
+  }
+
+  private void writeAndRead(boolean mapped) throws IOException {
+    List<BPlusRecord<Integer, String>> records = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      records.add(
+          i % 7 == 0
+              ? new BPlusRecord<Integer, String>(i * 2, true)
+              : new BPlusRecord<Integer, String>(i * 2, "v" + i));
+    }
+    File file = folder.newFile();
+    new SSTableWriter<>(Serializers.INTEGER, Serializers.STRING, 64)
+        .write(file, records.iterator());
+    LSMNode<Integer, String> node = open(file, mapped, 1000);
+    Assert.assertEquals(1000, node.getSize());
+    Assert.assertTrue(node.needUnion());
+    Assert.assertNull(node.get(-1));
+    for (int i = 0; i < 1000; i++) {
+      BPlusRecord<Integer, String> record = node.get(i * 2);
+      Assert.assertEquals(i % 7 == 0, record.isDeleted());
+      if (!record.isDeleted()) {
+        Assert.assertEquals("v" + i, record.getValue());
+      }
+      Assert.assertNull(node.get(i * 2 + 1));
+    }
+    List<Integer> keys = new ArrayList<>();
+    for (int key = -1; key <= 2000; key += 3) {
+      keys.add(key);
+    }
+    List<BPlusRecord<Integer, String>> found = node.getAll(keys);
+    for (int i = 0; i < keys.size(); i++) {
+      BPlusRecord<Integer, String> expected = node.get(keys.get(i));
+      Assert.assertEquals(String.valueOf(expected), String.valueOf(found.get(i)));
+    }
+    Iterator<BPlusRecord<Integer, String>> iterator = node.iterator();
+    for (BPlusRecord<Integer, String> expected : records) {
+      Assert.assertEquals(expected.toString(), iterator.next().toString());
+    }
+    Assert.assertFalse(iterator.hasNext());
+    for (int from = -1; from <= 2000; from += 37) {
+      iterator = node.iterator(from);
+      for (int i = Math.max(0, (from + 1) / 2); i < 1000; i++) {
+        Assert.assertEquals(records.get(i).toString(), iterator.next().toString());
+      }
+      Assert.assertFalse(iterator.hasNext());
+    }
+    node.delete();
+    Assert.assertFalse(file.exists());
+  }
+
+  @Test
+  public void emptyTable() throws IOException {
+    File file = folder.newFile();
+    new SSTableWriter<>(Serializers.INTEGER, Serializers.STRING, 64)
+        .write(file, new ArrayList<BPlusRecord<Integer, String>>().iterator());
+    for (boolean mapped : new boolean[] {false, true}) {
+      LSMNode<Integer, String> node = open(file, mapped, 10);
+      Assert.assertTrue(node.isEmpty());
+      Assert.assertNull(node.get(1));
+      Assert.assertFalse(node.iterator().hasNext());
+    }
+  }
+
+  @Test
+  public void lsmTreeWithSSTableLevels() throws IOException {
+    File directory = folder.newFolder();
+    lsmTreeWithLevels(
+        directory,
+        () -> new SSTableLSMNodeFactory<>(directory, Serializers.INTEGER, Serializers.STRING, 64));
+  }
+
+  @Test
+  public void lsmTreeWithMappedLevels() throws IOException {
+    File directory = folder.newFolder();
+    lsmTreeWithLevels(
+        directory,
+        () ->
+            new MappedSSTableLSMNodeFactory<>(
+                directory, Serializers.INTEGER, Serializers.STRING, 64));
+  }
+
+  private void lsmTreeWithLevels(File directory, Supplier<LSMNodeFactory<Integer, String>> factory)
+      throws IOException {
+    LSMTree<Integer, String> tree =
+        new LSMTree<>(new LSMTreeConfig<Integer, String>(6, 2, 3).setLevelFactory(factory.get()));
+    for (int i = 0; i < 500; i++) {
+      tree.insert(i, "v" + i);
+    }
+    for (int i = 0; i < 500; i += 3) {
+      tree.remove(i);
+    }
+    for (int i = 0; i < 500; i++) {
+      Assert.assertEquals(i % 3 == 0 ? null : "v" + i, tree.get(i));
+    }
+    // 除清单外每层至多一个文件
+    Assert.assertTrue(directory.list().length - 1 <= tree.getMaxLevel() - 1);
+    int files = directory.list().length;
+    tree.close();
+    Assert.assertEquals(files, directory.list().length);
+
+    // 重新打开时按清单恢复各层，未配置预写日志时 level 0 中的写入丢失。清单中没有记录的层文件被删除
+    File orphan = new File(directory, "L1-999999.sst");
+    Assert.assertTrue(orphan.createNewFile());
+    tree =
+        new LSMTree<>(new LSMTreeConfig<Integer, String>(6, 2, 3).setLevelFactory(factory.get()));
+    int count = 0;
+    try (ScanIterator<Integer, String> iterator = tree.scan()) {
+      while (iterator.hasNext()) {
+        BPlusRecord<Integer, String> record = iterator.next();
+        Assert.assertEquals("v" + record.getKey(), record.getValue());
+        count++;
+      }
+    }
+    Assert.assertTrue(count >= 500 - 500 / 3 - 6);
+    Assert.assertFalse(orphan.exists());
+    Assert.assertEquals(files, directory.list().length);
+    tree.close();
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.BPlusRecord;
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.ScanIterator;
+import lsmTree.SkipListLSMNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class ScanTest {
+
+  private void assertScan(
+      Iterator<Map.Entry<Integer, Integer>> expected, ScanIterator<Integer, Integer> actual) {
+    while (expected.hasNext()) {
+      Map.Entry<Integer, Integer> entry = expected.next();
+      Assert.assertTrue(actual.hasNext());
+      BPlusRecord<Integer, Integer> record = actual.next();
+      Assert.assertEquals(entry.getKey(), record.getKey());
+      Assert.assertEquals(entry.getValue(), record.getValue());
+    }
+    Assert.assertFalse(actual.hasNext());
+  }
+
+  private void randomOperations(LSMTree<Integer, Integer> tree) {
+    NavigableMap<Integer, Integer> model = new TreeMap<>();
+    Random random = new Random(1);
+    for (int i = 0; i < 3000; i++) {
+      int key = random.nextInt(500);
+      if (random.nextInt(4) == 0) {
+        tree.remove(key);
+        model.remove(key);
+      } else {
+        tree.insert(key, i);
+        model.put(key, i);
+      }
+    }
+    assertScan(model.entrySet().iterator(), tree.scan());
+    for (int i = 0; i < 100; i++) {
+      int from = random.nextInt(520) - 10;
+      int to = from + random.nextInt(100);
+      assertScan(model.subMap(from, true, to, false).entrySet().iterator(), tree.scan(from, to));
+      assertScan(model.tailMap(from, true).entrySet().iterator(), tree.scan(from, null));
+      assertScan(model.headMap(to, false).entrySet().iterator(), tree.scan(null, to));
+    }
+  }
+
+  @Test
+  public void scanBPlusMemTable() {
+    randomOperations(new LSMTree<>(6, 2, 3));
+  }
+
+  @Test
+  public void scanSkipListMemTable() {
+    randomOperations(
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, Integer>(6, 2, 3).setMemTableFactory(SkipListLSMNode::new)));
+  }
+
+  @Test
+  public void scanPrefix() {
+    LSMTree<String, Integer> tree = new LSMTree<>(4, 2, 3);
+    String[] keys = {"a", "user:1", "user:2", "user:3", "userx", "v"};
+    for (int i = 0; i < keys.length; i++) {
+      tree.insert(keys[i], i);
+    }
+    tree.remove("user:2");
+    ScanIterator<String, Integer> iterator =
+        tree.scanPrefix("user:", key -> key.startsWith("user:"));
+    Assert.assertEquals("user:1", iterator.next().getKey());
+    Assert.assertEquals("user:3", iterator.next().getKey());
+    Assert.assertFalse(iterator.hasNext());
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.BPlusRecord;
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.ScanIterator;
+import lsmTree.Snapshot;
+import lsmTree.WriteBatch;
+import lsmTree.codec.Serializers;
+import lsmTree.sstable.SSTableLSMNodeFactory;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SnapshotTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  /** 快照复制 level 0 而不冻结它，频繁创建快照不会触发合并 */
+  @Test
+  public void snapshotDoesNotFlush() throws IOException {
+    try (LSMTree<Integer, String> tree =
+        new LSMTree<>(new LSMTreeConfig<Integer, String>(1000, 2, 4))) {
+      Snapshot<Integer, String> previous = null;
+      for (int i = 0; i < 100; i++) {
+        tree.insert(i, "v" + i);
+        tree.insert(i - 1, "w" + i);
+        Snapshot<Integer, String> snapshot = tree.snapshot();
+        Assert.assertEquals("v" + i, snapshot.get(i));
+        Assert.assertEquals("w" + i, snapshot.get(i - 1));
+        if (previous != null) {
+          Assert.assertNull(previous.get(i));
+          Assert.assertEquals("v" + (i - 1), previous.get(i - 1));
+          previous.close();
+        }
+        previous = snapshot;
+      }
+      previous.close();
+      Assert.assertEquals(1, tree.getMaxLevel());
+      Assert.assertEquals(101, tree.getSize(0));
+    }
+  }
+
+  @Test
+  public void pointInTimeView() throws IOException {
+    try (LSMTree<Integer, String> tree =
+        new LSMTree<>(new LSMTreeConfig<Integer, String>(8, 2, 4))) {
+      for (int i = 0; i < 100; i++) {
+        tree.insert(i, "a" + i);
+      }
+      Snapshot<Integer, String> snapshot = tree.snapshot();
+      Assert.assertEquals(100, snapshot.getSequence());
+      for (int i = 0; i < 300; i++) {
+        tree.insert(i, "b" + i);
+      }
+      for (int i = 0; i < 100; i += 3) {
+        tree.remove(i);
+      }
+      Assert.assertEquals(434, tree.getSequence());
+      for (int i = 0; i < 300; i++) {
+        Assert.assertEquals(i < 100 ? "a" + i : null, snapshot.get(i));
+        Assert.assertEquals(i < 100 && i % 3 == 0 ? null : "b" + i, tree.get(i));
+      }
+      int count = 0;
+      try (ScanIterator<Integer, String> iterator = snapshot.scan(10, null)) {
+        while (iterator.hasNext()) {
+          BPlusRecord<Integer, String> record = iterator.next();
+          Assert.assertEquals("a" + record.getKey(), record.getValue());
+          count++;
+        }
+      }
+      Assert.assertEquals(90, count);
+      snapshot.close();
+      snapshot.close();
+      try {
+        snapshot.get(1);
+        Assert.fail();
+      } catch (IllegalStateException expected) {
+      }
+      // 之后没有写入时复用上一个快照的版本
+      Snapshot<Integer, String> first = tree.snapshot();
+      Snapshot<Integer, String> second = tree.snapshot();
+      Assert.assertEquals(first.getSequence(), second.getSequence());
+      first.close();
+      Assert.assertEquals("b1", second.get(1));
+      tree.insert(1000, "new");
+      Assert.assertNull(second.get(1000));
+      Snapshot<Integer, String> third = tree.snapshot();
+      Assert.assertEquals(second.getSequence() + 1, third.getSequence());
+      Assert.assertEquals("new", third.get(1000));
+      second.close();
+      third.close();
+    }
+  }
+
+  @Test
+  public void compactionKeepsLevelsOfOpenSnapshots() throws IOException {
+    File directory = folder.newFolder();
+    try (LSMTree<Integer, String> tree =
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, String>(8, 2, 4)
+                .setLevelFactory(
+                    new SSTableLSMNodeFactory<>(
+                        directory, Serializers.INTEGER, Serializers.STRING)))) {
+      for (int i = 0; i < 200; i++) {
+        tree.insert(i, "a" + i);
+      }
+      Snapshot<Integer, String> snapshot = tree.snapshot();
+      for (int round = 0; round < 5; round++) {
+        for (int i = 0; i < 200; i++) {
+          tree.insert(i, "b" + round);
+        }
+      }
+      int filesWithSnapshot = directory.list().length;
+      for (int i = 0; i < 200; i++) {
+        Assert.assertEquals("a" + i, snapshot.get(i));
+      }
+      // 快照的迭代器在快照关闭后仍可读完
+      ScanIterator<Integer, String> iterator = snapshot.scan();
+      snapshot.close();
+      int count = 0;
+      while (iterator.hasNext()) {
+        Assert.assertTrue(iterator.next().getValue().startsWith("a"));
+        count++;
+      }
+      Assert.assertEquals(200, count);
+      iterator.close();
+      Assert.assertTrue(directory.list().length < filesWithSnapshot);
+    }
+  }
+
+  @Test
+  public void scansSeeWholeBatchesDuringIngest() throws Exception {
+    try (LSMTree<Integer, Integer> tree =
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, Integer>(64, 3, 8).setBackgroundCompaction(true))) {
+      AtomicBoolean done = new AtomicBoolean();
+      Thread writer =
+          new Thread(
+              () -> {
+                for (int value = 0; !done.get(); value++) {
+                  WriteBatch<Integer, Integer> batch = new WriteBatch<>();
+                  for (int key = 0; key < 50; key++) {
+                    batch.put(key, value);
+                  }
+                  tree.write(batch);
+                }
+              });
+      writer.start();
+      try {
+        for (int round = 0; round < 50; round++) {
+          try (Snapshot<Integer, Integer> snapshot = tree.snapshot();
+              ScanIterator<Integer, Integer> iterator = snapshot.scan()) {
+            Integer expected = null;
+            int count = 0;
+            while (iterator.hasNext()) {
+              int value = iterator.next().getValue();
+              if (expected == null) {
+                expected = value;
+              }
+              Assert.assertEquals((int) expected, value);
+              count++;
+            }
+            Assert.assertTrue(count == 0 || count == 50);
+            Assert.assertEquals(snapshot.getSequence(), count == 0 ? 0 : (expected + 1) * 50L);
+          }
+        }
+      } finally {
+        done.set(true);
+        writer.join();
+      }
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.BPlusRecord;
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.SizeTieredCompactionStrategy;
+import lsmTree.SkipListLSMNode;
+import lsmTree.codec.Serializers;
+import lsmTree.sstable.SSTableLSMNodeFactory;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+public class TombstoneCompactionTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void removeAllBPlusLevels() throws IOException {
+    removeAll(new LSMTreeConfig<>(6, 2, 3));
+  }
+
+  @Test
+  public void removeAllSkipListMemTable() throws IOException {
+    removeAll(new LSMTreeConfig<Integer, String>(6, 2, 3).setMemTableFactory(SkipListLSMNode::new));
+  }
+
+  @Test
+  public void removeAllSSTableLevels() throws IOException {
+    File directory = folder.newFolder();
+    removeAll(
+        new LSMTreeConfig<Integer, String>(6, 2, 3)
+            .setLevelFactory(
+                new SSTableLSMNodeFactory<>(
+                    directory, Serializers.INTEGER, Serializers.STRING, 64)));
+  }
+
+  private void removeAll(LSMTreeConfig<Integer, String> config) throws IOException {
+    try (LSMTree<Integer, String> tree = new LSMTree<>(config)) {
+      for (int i = 0; i < 1000; i++) {
+        tree.insert(i, "v" + i);
+      }
+      for (int i = 0; i < 1000; i++) {
+        tree.remove(i);
+      }
+      // every level is all tombstones, so each one is pushed down and dropped at the bottom
+      for (int level = 1; level < tree.getMaxLevel(); level++) {
+        Assert.assertEquals(0, tree.getTombstoneCount(level));
+      }
+      for (int i = 0; i < 1000; i++) {
+        Assert.assertNull(tree.get(i));
+      }
+      Assert.assertFalse(tree.scan().hasNext());
+    }
+  }
+
+  @Test
+  public void bottomLevelDropsShadowedValues() throws IOException {
+    try (LSMTree<Integer, String> tree =
+        new LSMTree<>(new LSMTreeConfig<Integer, String>(6, 2, 3).setTombstoneCompactionRatio(0))) {
+      for (int i = 0; i < 500; i++) {
+        tree.insert(i, "v" + i);
+        if (i % 2 == 1) {
+          tree.remove(i - 1);
+        }
+      }
+      Assert.assertEquals(0, tree.getTombstoneCount(tree.getMaxLevel() - 1));
+      Iterator<BPlusRecord<Integer, String>> iterator = tree.scan();
+      for (int i = 1; i < 500; i += 2) {
+        Assert.assertEquals(i, (int) iterator.next().getKey());
+      }
+      Assert.assertFalse(iterator.hasNext());
+    }
+  }
+
+  @Test
+  public void sizeTieredCompactsTombstones() throws IOException {
+    long kept = sizeTieredRemoveAll(0.5);
+    long ignored = sizeTieredRemoveAll(0);
+    Assert.assertTrue(kept + " >= " + ignored, kept < ignored);
+  }
+
+  /** @return records left in all levels after every key is removed */
+  private long sizeTieredRemoveAll(double ratio) throws IOException {
+    try (LSMTree<Integer, String> tree =
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, String>(6, 2, 3)
+                .setTombstoneCompactionRatio(ratio)
+                .setCompactionStrategy(new SizeTieredCompactionStrategy<>(4)))) {
+      for (int i = 0; i < 1000; i++) {
+        tree.insert(i, "v" + i);
+      }
+      for (int i = 0; i < 1000; i++) {
+        tree.remove(i);
+      }
+      Assert.assertFalse(tree.scan().hasNext());
+      long records = 0;
+      for (int level = 1; level < tree.getMaxLevel(); level++) {
+        records += tree.getSize(level);
+      }
+      return records;
+    }
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import bplustree.BPlusRecord;
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.codec.Serializers;
+import lsmTree.sstable.SSTableLSMNodeFactory;
+import lsmTree.wal.SyncPolicy;
+import lsmTree.wal.WriteAheadLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class WriteAheadLogTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private LSMTree<Integer, String> open(File file, SyncPolicy policy) throws IOException {
+    return new LSMTree<>(
+        6, 2, 3, new WriteAheadLog<>(file, Serializers.INTEGER, Serializers.STRING, policy));
+  }
+
+  @Test
+  public void replayAfterRestart() throws IOException {
+    File file = new File(folder.getRoot(), "wal.log");
+    for (SyncPolicy policy :
+        new SyncPolicy[] {
+          SyncPolicy.always(), SyncPolicy.groupCommit(10, 128), SyncPolicy.none()
+        }) {
+      file.delete();
+      try (LSMTree<Integer, String> tree = open(file, policy)) {
+        for (int i = 0; i < 100; i++) {
+          tree.insert(i, "v" + i);
+        }
+        for (int i = 0; i < 100; i += 2) {
+          tree.remove(i);
+        }
+      }
+      try (LSMTree<Integer, String> tree = open(file, policy)) {
+        for (int i = 0; i < 100; i++) {
+          Assert.assertEquals(i % 2 == 0 ? null : "v" + i, tree.get(i));
+        }
+        tree.insert(0, "again");
+      }
+      try (LSMTree<Integer, String> tree = open(file, policy)) {
+        Assert.assertEquals("again", tree.get(0));
+      }
+    }
+  }
+
+  /** 各层存放在文件中时，重启后按清单打开各层，只回放尚未合并的日志，已合并的日志文件被删除 */
+  @Test
+  public void reopenLevelsFromManifest() throws Exception {
+    for (boolean background : new boolean[] {false, true}) {
+      File directory = folder.newFolder();
+      File file = new File(folder.newFolder(), "wal.log");
+      for (int round = 0; round < 3; round++) {
+        try (LSMTree<Integer, String> tree = openWithLevels(directory, file, background)) {
+          for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(expected(i, round - 1), tree.get(i));
+          }
+          for (int i = 0; i < 100; i++) {
+            tree.insert(i, "v" + round + "-" + i);
+            if (i == 50) {
+              tree.snapshot().close();
+            }
+          }
+          for (int i = round % 2; i < 100; i += 2) {
+            tree.remove(i);
+          }
+          tree.awaitCompaction();
+        }
+        // 合并完成的 level 0 的日志文件已被删除
+        Assert.assertTrue(file.getParentFile().list().length <= 4);
+      }
+    }
+  }
+
+  private String expected(int key, int round) {
+    return round < 0 || key % 2 == round % 2 ? null : "v" + round + "-" + key;
+  }
+
+  private LSMTree<Integer, String> openWithLevels(File directory, File file, boolean background)
+      throws IOException {
+    return new LSMTree<>(
+        new LSMTreeConfig<Integer, String>(8, 2, 3)
+            .setBackgroundCompaction(background)
+            .setLevelFactory(
+                new SSTableLSMNodeFactory<>(directory, Serializers.INTEGER, Serializers.STRING, 64))
+            .setWal(
+                new WriteAheadLog<>(
+                    file, Serializers.INTEGER, Serializers.STRING, SyncPolicy.none())));
+  }
+
+  @Test
+  public void truncateTornTail() throws IOException {
+    File file = new File(folder.getRoot(), "wal.log");
+    try (LSMTree<Integer, String> tree = open(file, SyncPolicy.always())) {
+      for (int i = 0; i < 10; i++) {
+        tree.insert(i, "v" + i);
+      }
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(raf.length() - 3);
+    }
+    try (LSMTree<Integer, String> tree = open(file, SyncPolicy.always())) {
+      Assert.assertNull(tree.get(9));
+      Assert.assertEquals("v8", tree.get(8));
+      tree.insert(9, "new");
+    }
+    try (LSMTree<Integer, String> tree = open(file, SyncPolicy.always())) {
+      Assert.assertEquals("new", tree.get(9));
+    }
+  }
+
+  private WriteAheadLog<Integer, String> openLog(File file, SyncPolicy policy) throws IOException {
+    WriteAheadLog<Integer, String> wal =
+        new WriteAheadLog<>(file, Serializers.INTEGER, Serializers.STRING, policy);
+    wal.replay(record -> {});
+    return wal;
+  }
+
+  private List<BPlusRecord<Integer, String>> replayCopy(File file) throws IOException {
+    File copy = new File(folder.getRoot(), file.getName() + ".copy");
+    Files.copy(file.toPath(), copy.toPath());
+    List<BPlusRecord<Integer, String>> records = new ArrayList<>();
+    try (WriteAheadLog<Integer, String> wal =
+        new WriteAheadLog<>(copy, Serializers.INTEGER, Serializers.STRING, SyncPolicy.none())) {
+      wal.replay(records::add);
+    }
+    copy.delete();
+    return records;
+  }
+
+  /** 组提交的写入在其日志写入文件并刷盘后才返回 */
+  @Test
+  public void groupCommitWaitsForSync() throws Exception {
+    File file = new File(folder.getRoot(), "wal.log");
+    WriteAheadLog<Integer, String> wal = openLog(file, SyncPolicy.groupCommit(20, 1 << 20));
+    List<Thread> writers = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      int first = t * 25;
+      Thread writer =
+          new Thread(
+              () -> {
+                try {
+                  for (int i = first; i < first + 25; i++) {
+                    wal.append(new BPlusRecord<>(i, "v" + i));
+                  }
+                } catch (IOException e) {
+                  throw new RuntimeException(e);
+                }
+              });
+      writer.start();
+      writers.add(writer);
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    Assert.assertEquals(100, replayCopy(file).size());
+    long offset = wal.write(new BPlusRecord<>(100, "v100"));
+    Assert.assertEquals(100, replayCopy(file).size());
+    wal.awaitDurable(offset);
+    Assert.assertEquals(101, replayCopy(file).size());
+    wal.close();
+  }
+
+  /** NONE 不 fsync，但返回的写入已写入文件，进程崩溃后不关闭日志也能回放出来 */
+  @Test
+  public void noneWritesThroughBeforeReturning() throws IOException {
+    File file = new File(folder.getRoot(), "wal.log");
+    WriteAheadLog<Integer, String> wal = openLog(file, SyncPolicy.none());
+    wal.append(new BPlusRecord<>(1, "v1"));
+    Assert.assertEquals(1, replayCopy(file).size());
+    List<BPlusRecord<Integer, String>> batch = new ArrayList<>();
+    for (int i = 2; i < 10; i++) {
+      batch.add(new BPlusRecord<>(i, "v" + i));
+    }
+    wal.appendBatch(batch);
+    Assert.assertEquals(9, replayCopy(file).size());
+    wal.close();
+  }
+
+  /** 写入失败一次后，之后的追加和刷盘都应失败，而不是报告成功 */
+  @Test
+  public void failureIsSticky() throws IOException {
+    File file = new File(folder.getRoot(), "wal.log");
+    WriteAheadLog<Integer, String> wal = openLog(file, SyncPolicy.always());
+    wal.append(new BPlusRecord<>(1, "v1"));
+    // 中断会使下一次写入时文件被关闭
+    Thread.currentThread().interrupt();
+    try {
+      wal.append(new BPlusRecord<>(2, "v2"));
+      Assert.fail();
+    } catch (IOException expected) {
+    } finally {
+      Thread.interrupted();
+    }
+    try {
+      wal.append(new BPlusRecord<>(3, "v3"));
+      Assert.fail();
+    } catch (IOException expected) {
+      Assert.assertNotNull(expected.getCause());
+    }
+    try {
+      wal.sync();
+      Assert.fail();
+    } catch (IOException expected) {
+    }
+    try {
+      wal.close();
+      Assert.fail();
+    } catch (IOException expected) {
+    }
+    Assert.assertEquals(1, replayCopy(file).size());
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import lsmTree.BPlusLSMNode;
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.WriteBatch;
+import lsmTree.codec.Serializers;
+import lsmTree.wal.SyncPolicy;
+import lsmTree.wal.WriteAheadLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WriteBatchTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void lastWriteWinsAndFreezesOnce() throws IOException {
+    AtomicInteger memTables = new AtomicInteger();
+    LSMTree<Integer, String> tree =
+        new LSMTree<>(
+            new LSMTreeConfig<Integer, String>(10, 2, 4)
+                .setMemTableFactory(
+                    maxSize -> {
+                      memTables.incrementAndGet();
+                      return new BPlusLSMNode<>(4, maxSize);
+                    }));
+    WriteBatch<Integer, String> batch = new WriteBatch<>();
+    for (int i = 99; i >= 0; i--) {
+      batch.put(i, "v" + i);
+    }
+    batch.put(5, "again").delete(7).delete(8).put(8, "back");
+    Assert.assertEquals(104, batch.size());
+    tree.write(batch);
+    // 整批写入后只冻结一次 level 0
+    Assert.assertEquals(2, memTables.get());
+    for (int i = 0; i < 100; i++) {
+      String expected = i == 5 ? "again" : i == 7 ? null : i == 8 ? "back" : "v" + i;
+      Assert.assertEquals(expected, tree.get(i));
+    }
+    tree.write(new WriteBatch<>());
+    Assert.assertEquals(2, memTables.get());
+    tree.close();
+  }
+
+  @Test
+  public void batchIsReplayedAtomically() throws IOException {
+    File file = new File(folder.getRoot(), "wal.log");
+    try (LSMTree<Integer, String> tree = open(file)) {
+      WriteBatch<Integer, String> batch = new WriteBatch<>();
+      for (int i = 0; i < 50; i++) {
+        batch.put(i, "v" + i);
+      }
+      tree.write(batch.delete(0));
+      batch.clear();
+      for (int i = 0; i < 50; i++) {
+        batch.put(i, "w" + i);
+      }
+      tree.write(batch);
+    }
+    // 截断最后一批的尾部，整批都不应被回放
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(raf.length() - 3);
+    }
+    try (LSMTree<Integer, String> tree = open(file)) {
+      for (int i = 0; i < 50; i++) {
+        Assert.assertEquals(i == 0 ? null : "v" + i, tree.get(i));
+      }
+    }
+  }
+
+  private LSMTree<Integer, String> open(File file) throws IOException {
+    return new LSMTree<>(
+        6,
+        2,
+        3,
+        new WriteAheadLog<>(file, Serializers.INTEGER, Serializers.STRING, SyncPolicy.always()));
+  }
+}
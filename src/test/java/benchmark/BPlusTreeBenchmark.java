@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package benchmark;
+
+import bplustree.ArrayBPlusTree;
+import bplustree.BPlusRecord;
+import bplustree.BPlusTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for BPlusTree insertOrUpdate and get under different orders and key distributions. The
+ * array* benchmarks run the same operations against the array-backed ArrayBPlusTree layout.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BPlusTreeBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class TreeState {
+    @Param({"3", "16", "64", "256"})
+    public int order;
+
+    @Param({"SEQUENTIAL", "UNIFORM", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    @Param({"100000"})
+    public int keySpace;
+
+    public BPlusTree<Integer, Integer> tree;
+    public ArrayBPlusTree<Integer, Integer> arrayTree;
+    public KeyDistribution.KeyGenerator keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      tree = new BPlusTree<>(order);
+      arrayTree = new ArrayBPlusTree<>(order);
+      for (int i = 0; i < keySpace; i++) {
+        tree.insertOrUpdate(i, i);
+        arrayTree.insertOrUpdate(i, i);
+      }
+      keys = distribution.newGenerator(keySpace, 7);
+    }
+  }
+
+  @Benchmark
+  public BPlusRecord<Integer, Integer> get(TreeState state) {
+    return state.tree.get(state.keys.nextKey());
+  }
+
+  @Benchmark
+  public void insertOrUpdate(TreeState state) {
+    int key = state.keys.nextKey();
+    state.tree.insertOrUpdate(key, key);
+  }
+
+  /** Builds a fresh tree from scratch so that every leaf and internal split is measured. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public BPlusTree<Integer, Integer> build(TreeState state) {
+    BPlusTree<Integer, Integer> tree = new BPlusTree<>(state.order);
+    for (int i = 0; i < state.keySpace; i++) {
+      tree.insertOrUpdate(state.keys.nextKey(), i);
+    }
+    return tree;
+  }
+
+  @Benchmark
+  public BPlusRecord<Integer, Integer> arrayGet(TreeState state) {
+    return state.arrayTree.get(state.keys.nextKey());
+  }
+
+  @Benchmark
+  public Integer arrayInsertOrUpdate(TreeState state) {
+    int key = state.keys.nextKey();
+    return state.arrayTree.insertOrUpdate(key, key);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public ArrayBPlusTree<Integer, Integer> arrayBuild(TreeState state) {
+    ArrayBPlusTree<Integer, Integer> tree = new ArrayBPlusTree<>(state.order);
+    for (int i = 0; i < state.keySpace; i++) {
+      tree.insertOrUpdate(state.keys.nextKey(), i);
+    }
+    return tree;
+  }
+}
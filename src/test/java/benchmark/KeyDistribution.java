@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package benchmark;
+
+import java.util.Random;
+
+/** 基准测试中使用的键分布 */
+public enum KeyDistribution {
+  SEQUENTIAL,
+  UNIFORM,
+  ZIPFIAN;
+
+  /**
+   * 创建该分布下的键生成器
+   *
+   * @param keySpace 键的取值范围 [0, keySpace)
+   * @param seed 随机种子
+   */
+  public KeyGenerator newGenerator(int keySpace, long seed) {
+    switch (this) {
+      case SEQUENTIAL:
+        return new SequentialGenerator(keySpace);
+      case UNIFORM:
+        return new UniformGenerator(keySpace, seed);
+      default:
+        return new ZipfianGenerator(keySpace, seed);
+    }
+  }
+
+  public interface KeyGenerator {
+    int nextKey();
+  }
+
+  private static class SequentialGenerator implements KeyGenerator {
+    private final int keySpace;
+    private int current = 0;
+
+    SequentialGenerator(int keySpace) {
+      this.keySpace = keySpace;
+    }
+
+    @Override
+    public int nextKey() {
+      int key = current;
+      current = (current + 1) % keySpace;
+      return key;
+    }
+  }
+
+  private static class UniformGenerator implements KeyGenerator {
+    private final int keySpace;
+    private final Random random;
+
+    UniformGenerator(int keySpace, long seed) {
+      this.keySpace = keySpace;
+      this.random = new Random(seed);
+    }
+
+    @Override
+    public int nextKey() {
+      return random.nextInt(keySpace);
+    }
+  }
+
+  /**
+   * Zipfian 分布，参考 Gray et al. "Quickly Generating Billion-Record Synthetic Databases" 以及 YCSB
+   * 的实现，theta 越大热点越集中。
+   */
+  private static class ZipfianGenerator implements KeyGenerator {
+    private static final double THETA = 0.99;
+
+    private final int keySpace;
+    private final Random random;
+    private final double zetaN;
+    private final double alpha;
+    private final double eta;
+
+    ZipfianGenerator(int keySpace, long seed) {
+      this.keySpace = keySpace;
+      this.random = new Random(seed);
+      this.zetaN = zeta(keySpace);
+      this.alpha = 1.0 / (1.0 - THETA);
+      this.eta = (1 - Math.pow(2.0 / keySpace, 1 - THETA)) / (1 - zeta(2) / zetaN);
+    }
+
+    private static double zeta(int n) {
+      double sum = 0;
+      for (int i = 1; i <= n; i++) {
+        sum += 1 / Math.pow(i, THETA);
+      }
+      return sum;
+    }
+
+    @Override
+    public int nextKey() {
+      double u = random.nextDouble();
+      double uz = u * zetaN;
+      if (uz < 1.0) {
+        return 0;
+      }
+      if (uz < 1.0 + Math.pow(0.5, THETA)) {
+        return 1;
+      }
+      int key = (int) (keySpace * Math.pow(eta * u - eta + 1, alpha));
+      return Math.min(key, keySpace - 1);
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package benchmark;
+
+import lsmTree.CompactionStrategy;
+import lsmTree.LSMTree;
+import lsmTree.LSMTreeConfig;
+import lsmTree.LeveledCompactionStrategy;
+import lsmTree.ScanIterator;
+import lsmTree.SizeTieredCompactionStrategy;
+import lsmTree.WholeLevelCompactionStrategy;
+import lsmTree.WriteBatch;
+import lsmTree.codec.Serializers;
+import lsmTree.offheap.OffHeapLSMNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LSMTree 热点路径的基准测试：insert（包含触发的 merge）、get、remove 以及读写混合负载。
+ *
+ * <p>Throughput 给出吞吐，SampleTime 给出 p50/p99 等延迟分位数，配合 {@code -prof gc} 得到分配速率。
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LSMTreeBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class TreeState {
+    @Param({"1024", "8192"})
+    public int L0Size;
+
+    @Param({"4", "10"})
+    public int k;
+
+    @Param({"16", "64"})
+    public int order;
+
+    @Param({"SEQUENTIAL", "UNIFORM", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    // 预填充数据中被删除（写入墓碑）的键所占百分比
+    @Param({"0", "20"})
+    public int tombstonePercent;
+
+    @Param({"100000"})
+    public int keySpace;
+
+    // 每层布隆过滤器每个 key 的位数，0 表示不使用
+    @Param({"0", "10"})
+    public int bloomBitsPerKey;
+
+    // 合并策略：整层合并、每段 L0Size 条记录的分层合并、每层积累 k 段时合并的分级合并
+    @Param({"WHOLE_LEVEL", "LEVELED", "SIZE_TIERED"})
+    public String compaction;
+
+    // level 0 的存储方式：堆上的 B+ 树或堆外跳表，配合 -prof gc 比较 GC 开销
+    @Param({"ON_HEAP", "OFF_HEAP"})
+    public String memTable;
+
+    // 行缓存的条数，0 表示不使用
+    @Param({"0", "10000"})
+    public long rowCacheEntries;
+
+    public LSMTree<Integer, Integer> tree;
+    public KeyDistribution.KeyGenerator keys;
+    public Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      LSMTreeConfig<Integer, Integer> config =
+          new LSMTreeConfig<Integer, Integer>(L0Size, k, order)
+              .setBloomFilterBitsPerKey(bloomBitsPerKey)
+              .setCompactionStrategy(compactionStrategy())
+              .setRowCacheEntries(rowCacheEntries);
+      if ("OFF_HEAP".equals(memTable)) {
+        config.setMemTableFactory(
+            maxSize -> new OffHeapLSMNode<>(Serializers.INTEGER, Serializers.INTEGER, maxSize));
+      }
+      tree = new LSMTree<>(config);
+      random = new Random(42);
+      for (int i = 0; i < keySpace; i++) {
+        tree.insert(i, i);
+      }
+      for (int i = 0; i < keySpace; i++) {
+        if (random.nextInt(100) < tombstonePercent) {
+          tree.remove(i);
+        }
+      }
+      keys = distribution.newGenerator(keySpace, 7);
+    }
+
+    private CompactionStrategy<Integer, Integer> compactionStrategy() {
+      switch (compaction) {
+        case "LEVELED":
+          return new LeveledCompactionStrategy<>(L0Size);
+        case "SIZE_TIERED":
+          return new SizeTieredCompactionStrategy<>(k);
+        default:
+          return new WholeLevelCompactionStrategy<>();
+      }
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class MixState {
+    // 混合负载中读操作所占百分比
+    @Param({"50", "95"})
+    public int readPercent;
+  }
+
+  @Benchmark
+  public Integer get(TreeState state) {
+    return state.tree.get(state.keys.nextKey());
+  }
+
+  /** 每次批量查询 100 个键，与逐个 get 对比 */
+  @Benchmark
+  @OperationsPerInvocation(100)
+  public Map<Integer, Integer> multiGet(TreeState state) {
+    List<Integer> keys = new ArrayList<>(100);
+    for (int i = 0; i < 100; i++) {
+      keys.add(state.keys.nextKey());
+    }
+    return state.tree.multiGet(keys);
+  }
+
+  @Benchmark
+  public void insert(TreeState state) {
+    int key = state.keys.nextKey();
+    state.tree.insert(key, key);
+  }
+
+  /** 每次整批写入 100 个键，与逐条 insert 对比 */
+  @Benchmark
+  @OperationsPerInvocation(100)
+  public void writeBatch(TreeState state) {
+    WriteBatch<Integer, Integer> batch = new WriteBatch<>();
+    for (int i = 0; i < 100; i++) {
+      int key = state.keys.nextKey();
+      batch.put(key, key);
+    }
+    state.tree.write(batch);
+  }
+
+  @Benchmark
+  public void remove(TreeState state) {
+    state.tree.remove(state.keys.nextKey());
+  }
+
+  /** 从一个随机键开始顺序读取 100 条记录 */
+  @Benchmark
+  public long scan(TreeState state) {
+    long sum = 0;
+    try (ScanIterator<Integer, Integer> iterator = state.tree.scan(state.keys.nextKey(), null)) {
+      for (int i = 0; i < 100 && iterator.hasNext(); i++) {
+        sum += iterator.next().getValue();
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public Integer mixed(TreeState state, MixState mix) {
+    int key = state.keys.nextKey();
+    int op = state.random.nextInt(100);
+    if (op < mix.readPercent) {
+      return state.tree.get(key);
+    }
+    if (state.random.nextInt(100) < state.tombstonePercent) {
+      state.tree.remove(key);
+    } else {
+      state.tree.insert(key, key);
+    }
+    return null;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package benchmark;
+
+import lsmTree.LSMTree;
+import lsmTree.LongLSMTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** LongLSMTree 与 LSMTree&lt;Long, Long&gt; 的对比：相同参数下的 get 和 put，配合 {@code -prof gc} 比较每次操作的分配量。 */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LongLSMTreeBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class TreeState {
+    @Param({"1024", "8192"})
+    public int L0Size;
+
+    @Param({"4", "10"})
+    public int k;
+
+    @Param({"16", "64"})
+    public int order;
+
+    @Param({"SEQUENTIAL", "UNIFORM", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    @Param({"100000"})
+    public int keySpace;
+
+    public LongLSMTree primitive;
+    public LSMTree<Long, Long> boxed;
+    public KeyDistribution.KeyGenerator keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      primitive = new LongLSMTree(L0Size, k, order);
+      boxed = new LSMTree<>(L0Size, k, order);
+      for (long i = 0; i < keySpace; i++) {
+        primitive.put(i, i);
+        boxed.insert(i, i);
+      }
+      keys = distribution.newGenerator(keySpace, 7);
+    }
+  }
+
+  @Benchmark
+  public long primitiveGet(TreeState state) {
+    return state.primitive.get(state.keys.nextKey(), -1);
+  }
+
+  @Benchmark
+  public Long boxedGet(TreeState state) {
+    return state.boxed.get((long) state.keys.nextKey());
+  }
+
+  @Benchmark
+  public void primitivePut(TreeState state) {
+    long key = state.keys.nextKey();
+    state.primitive.put(key, key);
+  }
+
+  @Benchmark
+  public void boxedPut(TreeState state) {
+    long key = state.keys.nextKey();
+    state.boxed.insert(key, key);
+  }
+}